@@ -0,0 +1,103 @@
+package cricketclub;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Club operations against a squad of `size` players and `size` scheduled matches
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ClubBenchmark {
+    private static final int OPPONENTS = 10;
+    private static final int PLAYERS_PER_MATCH = 11;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Club club;
+    private Player newPlayer;
+    private int middleId; // Id of the player halfway down the squad
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        club = new Club("Benchmark Club", null);
+        for (int i = 0; i < size; i++) {
+            club.addPlayer(new Player("Player " + i, 18 + i % 20, i % 2 == 0 ? "Batsman" : "Bowler"));
+        }
+        for (int i = 0; i < size; i++) {
+            club.scheduleMatch("Opponent " + i % OPPONENTS);
+            Match match = club.getMatch(i);
+            for (int j = 0; j < PLAYERS_PER_MATCH; j++) {
+                club.recordMatchPerformance(match, club.getPlayerById((i + j) % size), i % 100, j % 3);
+            }
+        }
+        newPlayer = new Player("New Player", 21, "All-rounder");
+        middleId = size / 2;
+        // Build the search index up front so addPlayer and removePlayer include keeping it current
+        club.searchPlayers("Player", 1);
+    }
+
+    // The squad is left at `size` players after each call
+    @Benchmark
+    public void addPlayer() {
+        club.addPlayer(newPlayer);
+        club.removePlayer(newPlayer);
+    }
+
+    // Re-adding puts the player at the end of the squad, which moves the next id up into the
+    // middle, so the ids from size / 2 to size - 1 are each removed from the middle in turn.
+    // After a full cycle the squad is back in its original order.
+    @Benchmark
+    public void removePlayer() {
+        Player player = club.getPlayerById(middleId);
+        club.removePlayer(player);
+        club.addPlayer(player);
+        middleId = middleId + 1 == size ? size / 2 : middleId + 1;
+    }
+
+    @Benchmark
+    public int calculateRunsAgainstOpponent() {
+        return club.calculateRunsAgainstOpponent("Opponent 3");
+    }
+
+    @Benchmark
+    public List<?> getPlayers() {
+        return club.getPlayers();
+    }
+
+    @Benchmark
+    public List<?> searchPlayers() {
+        return club.searchPlayers("layer 42", PlayerSearchModel.MAX_RESULTS);
+    }
+
+    @Benchmark
+    public List<?> getMatches() {
+        return club.getMatches();
+    }
+
+    // What a combo box or squad dump does for each player it shows
+    @Benchmark
+    public int renderSquad() {
+        int length = 0;
+        for (Player player : club.getPlayers()) {
+            length += player.toString().length();
+        }
+        return length;
+    }
+}
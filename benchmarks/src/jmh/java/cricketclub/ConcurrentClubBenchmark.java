@@ -0,0 +1,76 @@
+package cricketclub;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Several scorers recording performances into one club at once. Run with -t to vary the
+// number of writer threads; each thread scores its own match against a shared squad.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class ConcurrentClubBenchmark {
+    private static final int SQUAD_SIZE = 1000;
+    private static final int MAX_THREADS = 256;
+
+    @State(Scope.Benchmark)
+    public static class SharedClub {
+        Club club;
+        Player[] players;
+        final AtomicInteger nextMatch = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            club = new Club("Benchmark Club", null);
+            players = new Player[SQUAD_SIZE];
+            for (int i = 0; i < SQUAD_SIZE; i++) {
+                players[i] = new Player("Player " + i, 18 + i % 20, i % 2 == 0 ? "Batsman" : "Bowler");
+                club.addPlayer(players[i]);
+            }
+            for (int i = 0; i < MAX_THREADS; i++) {
+                club.scheduleMatch("Opponent " + i % 10);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Scorer {
+        Match match;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedClub shared) {
+            match = shared.club.getMatch(shared.nextMatch.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    public void recordMatchPerformance(SharedClub shared, Scorer scorer) {
+        Player player = shared.players[scorer.next];
+        scorer.next = scorer.next + 1 == SQUAD_SIZE ? 0 : scorer.next + 1;
+        shared.club.recordMatchPerformance(scorer.match, player, 4, 0);
+    }
+
+    // All threads update the same players' totals
+    @Benchmark
+    public void attendTrainingSession(SharedClub shared, Scorer scorer) {
+        Player player = shared.players[scorer.next];
+        scorer.next = scorer.next + 1 == SQUAD_SIZE ? 0 : scorer.next + 1;
+        shared.club.attendTrainingSession(player);
+    }
+}
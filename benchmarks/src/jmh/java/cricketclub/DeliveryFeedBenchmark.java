@@ -0,0 +1,51 @@
+package cricketclub;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Ball-by-ball ingestion on a single thread: publish a batch of deliveries, then apply it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryFeedBenchmark {
+    private static final int BATCH = 512;
+
+    private DeliveryFeed feed;
+    private int ball;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Club club = new Club("Benchmark Club", null);
+        for (int i = 0; i < 22; i++) {
+            club.addPlayer(new Player("Player " + i, 18 + i, i < 11 ? "Batsman" : "Bowler"));
+        }
+        club.scheduleMatch("Opponent");
+        feed = new DeliveryFeed(club, club.getMatch(0), 4096);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int publishAndDrain() {
+        for (int i = 0; i < BATCH; i++) {
+            int n = ball++;
+            feed.publish(n / 6, n % 6 + 1, n % 11, 11 + n / 6 % 5, n % 7 == 0 ? 4 : 1, 0, ExtraType.NONE,
+                    n % 97 == 0 ? WicketType.BOWLED : WicketType.NONE);
+        }
+        return feed.drain();
+    }
+}
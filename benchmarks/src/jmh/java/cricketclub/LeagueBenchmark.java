@@ -0,0 +1,64 @@
+package cricketclub;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// League-wide leaderboards over `clubs` clubs of twenty players each, split over `shards`
+// shards, so the per-shard fan-out can be compared with a single shard
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LeagueBenchmark {
+    private static final int PLAYERS_PER_CLUB = 20;
+
+    @Param({"1000", "10000"})
+    public int clubs;
+
+    @Param({"1", "16"})
+    public int shards;
+
+    private League league;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        league = new League(shards);
+        for (int c = 0; c < clubs; c++) {
+            league.addClub("Club " + c);
+        }
+        for (int c = 0; c < clubs; c++) {
+            Fixture fixture = league.scheduleFixture("Club " + c, "Club " + (c + 1) % clubs);
+            Club home = fixture.getHome();
+            for (int p = 0; p < PLAYERS_PER_CLUB; p++) {
+                Player player = new Player("Player " + c + "-" + p, 18 + p, p % 2 == 0 ? "Batsman" : "Bowler");
+                home.addPlayer(player);
+                fixture.recordPerformance(player, (c * 31 + p * 17) % 150, p % 5);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<LeaguePlayer> topRunScorers() {
+        return league.topRunScorers(10);
+    }
+
+    @Benchmark
+    public List<LeaguePlayer> topWicketTakers() {
+        return league.topWicketTakers(10);
+    }
+}
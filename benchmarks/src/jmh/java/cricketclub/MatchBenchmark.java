@@ -0,0 +1,56 @@
+package cricketclub;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Match operations against a single match holding `size` player performances
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatchBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Match match;
+    private Player[] players;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        match = new Club("Benchmark Club", null).scheduleMatch("Opponent");
+        players = new Player[size];
+        for (int i = 0; i < size; i++) {
+            players[i] = new Player("Player " + i, 18 + i % 20, i % 2 == 0 ? "Batsman" : "Bowler");
+            match.addPlayerPerformance(players[i], i % 100, i % 3);
+        }
+    }
+
+    // Overwrites an existing row, so the match stays at `size` performances
+    @Benchmark
+    public void addPlayerPerformance() {
+        Player player = players[next];
+        next = next + 1 == size ? 0 : next + 1;
+        match.addPlayerPerformance(player, 42, 1);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getPlayerRunsMap() {
+        return match.getPlayerRunsMap();
+    }
+}
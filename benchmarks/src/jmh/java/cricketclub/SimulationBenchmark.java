@@ -0,0 +1,66 @@
+package cricketclub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Simulating `innings` innings of an eleven with 200 past matches each, a quarter of them
+// against the opponent simulated
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SimulationBenchmark {
+    private static final int PLAYERS = 11;
+    private static final int MATCHES = 200;
+
+    @Param({"100000", "1000000"})
+    public int innings;
+
+    private Club club;
+    private List<Player> team;
+    private MatchSimulator simulator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        club = new Club("Benchmark Club", null);
+        team = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player("Player " + i, 18 + i, i < 6 ? "Batsman" : "Bowler");
+            club.addPlayer(player);
+            team.add(player);
+        }
+        for (int i = 0; i < MATCHES; i++) {
+            Match match = club.scheduleMatch("Opponent " + i % 4);
+            for (int j = 0; j < PLAYERS; j++) {
+                club.recordMatchPerformance(match, team.get(j), (i * 31 + j * 17) % (j < 6 ? 80 : 20), (i + j) % 4);
+            }
+        }
+        simulator = new MatchSimulator(club, team, "Opponent 1");
+    }
+
+    @Benchmark
+    public SimulationResult run() {
+        return simulator.run(innings, 150, 42, done -> true);
+    }
+
+    @Benchmark
+    public MatchSimulator prepare() {
+        return new MatchSimulator(club, team, "Opponent 1");
+    }
+}
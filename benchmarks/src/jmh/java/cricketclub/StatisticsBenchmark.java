@@ -0,0 +1,81 @@
+package cricketclub;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Season statistics over `performances` performances, eleven to a match, spread over a
+// squad of a tenth as many players
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatisticsBenchmark {
+    private static final int PLAYERS_PER_MATCH = 11;
+
+    @Param({"10000", "100000", "1000000"})
+    public int performances;
+
+    private Club club;
+    private ClubStatistics statistics;
+    private Player regular;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        club = new Club("Benchmark Club", null);
+        int players = performances / 10;
+        for (int i = 0; i < players; i++) {
+            club.addPlayer(new Player("Player " + i, 18 + i % 20, i % 2 == 0 ? "Batsman" : "Bowler"));
+        }
+        int matches = performances / PLAYERS_PER_MATCH;
+        for (int i = 0; i < matches; i++) {
+            club.scheduleMatch("Opponent " + i % 10);
+            Match match = club.getMatch(i);
+            for (int j = 0; j < PLAYERS_PER_MATCH; j++) {
+                int id = (int) ((long) (i * PLAYERS_PER_MATCH + j) * 7919 % players);
+                club.recordMatchPerformance(match, club.getPlayerById(id), (i + j) % 100, j % 4);
+            }
+        }
+        statistics = ClubStatistics.compute(club);
+        regular = club.getPlayerById(0);
+    }
+
+    @Benchmark
+    public ClubStatistics compute() {
+        return ClubStatistics.compute(club);
+    }
+
+    @Benchmark
+    public List<PlayerTotals> topRunScorers() {
+        return statistics.topRunScorers(10);
+    }
+
+    @Benchmark
+    public List<PlayerTotals> topBattingAverages() {
+        return statistics.topBattingAverages(10, 3);
+    }
+
+    @Benchmark
+    public ClubStatistics againstOpponent() {
+        return ClubStatistics.againstOpponent(club, "Opponent 3");
+    }
+
+    @Benchmark
+    public PlayerTotals form() {
+        return ClubStatistics.form(club, regular, 5);
+    }
+}
@@ -0,0 +1,6176 @@
+package cricketclub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class Person {
+    protected String name;
+    protected int age;
+
+    public Person(String name, int age) {
+        this.name = name;
+        this.age = age;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    @Override
+    public String toString() {
+        return "Name: " + name + ", Age: " + age;
+    }
+}
+
+// Training totals over a stretch of time
+class TrainingLoad {
+    private final int sessions;
+    private final long minutes;
+    private final long battingMinutes;
+    private final long bowlingMinutes;
+
+    public TrainingLoad(int sessions, long minutes, long battingMinutes, long bowlingMinutes) {
+        this.sessions = sessions;
+        this.minutes = minutes;
+        this.battingMinutes = battingMinutes;
+        this.bowlingMinutes = bowlingMinutes;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    public long getBattingMinutes() {
+        return battingMinutes;
+    }
+
+    public long getBowlingMinutes() {
+        return bowlingMinutes;
+    }
+}
+
+// One player's training sessions in time order. Times are epoch seconds, kept as the first
+// time followed by the gap to each next session as a variable-length number, so a session
+// costs a byte or three of time plus three ints of minutes. The last 7 and 30 days are kept
+// as running totals: a session is added to them when recorded and taken off when the window
+// passes it, so reading a window never walks the history.
+class TrainingLog {
+    public static final long DAY_SECONDS = 86_400;
+
+    // The sessions inside one window are those from tail up to the latest session
+    private static final class Window {
+        final long length;
+        int tail;
+        long tailTime;
+        int nextGap; // Offset in gaps of the gap that follows the tail session
+        int sessions;
+        long minutes;
+        long battingMinutes;
+        long bowlingMinutes;
+
+        Window(long length) {
+            this.length = length;
+        }
+    }
+
+    private long firstTime;
+    private long lastTime;
+    private byte[] gaps = new byte[0];
+    private int gapsLength;
+    private int readOffset;
+    private int[] minutes = new int[0];
+    private int[] battingMinutes = new int[0];
+    private int[] bowlingMinutes = new int[0];
+    private int size;
+    private long totalMinutes;
+    private long totalBattingMinutes;
+    private long totalBowlingMinutes;
+    private long windowEnd = Long.MIN_VALUE; // Latest time the windows have been moved up to
+    private final Window week = new Window(7 * DAY_SECONDS);
+    private final Window month = new Window(30 * DAY_SECONDS);
+
+    // Sessions must be recorded in time order
+    public synchronized void record(long time, int minutes, int battingMinutes, int bowlingMinutes) {
+        if (minutes < 0 || battingMinutes < 0 || bowlingMinutes < 0) {
+            throw new IllegalArgumentException("Training time cannot be negative");
+        }
+        if (size > 0 && time < lastTime) {
+            throw new IllegalArgumentException("Training session at " + time + " is before the last one at "
+                    + lastTime);
+        }
+        if (size == this.minutes.length) {
+            int capacity = Math.max(4, size * 2);
+            this.minutes = Arrays.copyOf(this.minutes, capacity);
+            this.battingMinutes = Arrays.copyOf(this.battingMinutes, capacity);
+            this.bowlingMinutes = Arrays.copyOf(this.bowlingMinutes, capacity);
+        }
+        if (size == 0) {
+            firstTime = time;
+        } else {
+            putGap(time - lastTime);
+        }
+        lastTime = time;
+        this.minutes[size] = minutes;
+        this.battingMinutes[size] = battingMinutes;
+        this.bowlingMinutes[size] = bowlingMinutes;
+        size++;
+        totalMinutes += minutes;
+        totalBattingMinutes += battingMinutes;
+        totalBowlingMinutes += bowlingMinutes;
+        enter(week, time);
+        enter(month, time);
+        moveWindows(time);
+    }
+
+    // Takes the latest session back out, e.g. to undo it
+    public synchronized void removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("No training sessions to remove");
+        }
+        int index = --size;
+        totalMinutes -= minutes[index];
+        totalBattingMinutes -= battingMinutes[index];
+        totalBowlingMinutes -= bowlingMinutes[index];
+        leave(week, index);
+        leave(month, index);
+        if (size == 0) {
+            gapsLength = 0;
+            firstTime = 0;
+            lastTime = 0;
+            return;
+        }
+        // Every byte of a gap but its last has the top bit set, so the previous gap ends at
+        // the first byte before this one without it
+        int start = gapsLength - 1;
+        while (start > 0 && gaps[start - 1] < 0) {
+            start--;
+        }
+        lastTime -= readGap(start);
+        gapsLength = start;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getLastTime() {
+        return lastTime;
+    }
+
+    public synchronized TrainingLoad getTotal() {
+        return new TrainingLoad(size, totalMinutes, totalBattingMinutes, totalBowlingMinutes);
+    }
+
+    // Sessions in the 7 days up to now. The windows only move forward, so a now earlier than
+    // the latest session or an earlier query is answered for that later time.
+    public synchronized TrainingLoad getLastWeek(long now) {
+        moveWindows(now);
+        return load(week);
+    }
+
+    // Sessions in the 30 days up to now, on the same terms as getLastWeek
+    public synchronized TrainingLoad getLastMonth(long now) {
+        moveWindows(now);
+        return load(month);
+    }
+
+    public synchronized long[] getTimes() {
+        long[] times = new long[size];
+        long time = firstTime;
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                time += readGap(offset);
+                offset = readOffset;
+            }
+            times[i] = time;
+        }
+        return times;
+    }
+
+    public synchronized int getMinutes(int index) {
+        checkIndex(index);
+        return minutes[index];
+    }
+
+    public synchronized int getBattingMinutes(int index) {
+        checkIndex(index);
+        return battingMinutes[index];
+    }
+
+    public synchronized int getBowlingMinutes(int index) {
+        checkIndex(index);
+        return bowlingMinutes[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No training session " + index);
+        }
+    }
+
+    private void putGap(long gap) {
+        if (gapsLength + 10 > gaps.length) {
+            gaps = Arrays.copyOf(gaps, Math.max(16, gaps.length * 2));
+        }
+        while (gap >= 0x80) {
+            gaps[gapsLength++] = (byte) (gap | 0x80);
+            gap >>>= 7;
+        }
+        gaps[gapsLength++] = (byte) gap;
+    }
+
+    // Leaves readOffset just past the gap
+    private long readGap(int offset) {
+        long gap = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = gaps[offset++];
+            gap |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                readOffset = offset;
+                return gap;
+            }
+        }
+    }
+
+    private void enter(Window window, long time) {
+        int index = size - 1;
+        if (window.sessions == 0) {
+            window.tail = index;
+            window.tailTime = time;
+            window.nextGap = gapsLength;
+        }
+        window.sessions++;
+        window.minutes += minutes[index];
+        window.battingMinutes += battingMinutes[index];
+        window.bowlingMinutes += bowlingMinutes[index];
+    }
+
+    // Takes the latest session off the window if the window still holds it
+    private void leave(Window window, int index) {
+        if (window.sessions == 0 || index < window.tail) {
+            return;
+        }
+        window.sessions--;
+        window.minutes -= minutes[index];
+        window.battingMinutes -= battingMinutes[index];
+        window.bowlingMinutes -= bowlingMinutes[index];
+    }
+
+    private void moveWindows(long now) {
+        windowEnd = Math.max(windowEnd, now);
+        evict(week);
+        evict(month);
+    }
+
+    private void evict(Window window) {
+        while (window.sessions > 0 && window.tailTime <= windowEnd - window.length) {
+            int index = window.tail++;
+            window.sessions--;
+            window.minutes -= minutes[index];
+            window.battingMinutes -= battingMinutes[index];
+            window.bowlingMinutes -= bowlingMinutes[index];
+            if (window.sessions > 0) {
+                window.tailTime += readGap(window.nextGap);
+                window.nextGap = readOffset;
+            }
+        }
+    }
+
+    private static TrainingLoad load(Window window) {
+        return new TrainingLoad(window.sessions, window.minutes, window.battingMinutes, window.bowlingMinutes);
+    }
+}
+
+// Totals are LongAdders so several scorers can update the same player without losing counts.
+// Derived statistics and the display text are built on first use and kept until a change to
+// the totals, so rendering a squad builds no strings. Each change bumps a version after
+// updating the totals; the cache remembers the version it was built from, so a build that
+// raced a change is never kept as current.
+class Player extends Person {
+    // The figures of one version, with what is derived from them
+    private static final class Stats {
+        final int version;
+        final double battingAverage;
+        final double wicketsPerMatch;
+        final String display;
+
+        Stats(int version, double battingAverage, double wicketsPerMatch, String display) {
+            this.version = version;
+            this.battingAverage = battingAverage;
+            this.wicketsPerMatch = wicketsPerMatch;
+            this.display = display;
+        }
+    }
+
+    private int id = -1; // Assigned when the player is registered with a club
+    private volatile PlayerRegistry registry; // Written after id, so seeing it means id is set
+    private String role;
+    private final LongAdder matchesPlayed = new LongAdder();
+    private final LongAdder runsScored = new LongAdder();
+    private final LongAdder wicketsTaken = new LongAdder();
+    private final LongAdder trainingSessions = new LongAdder(); // New field for training sessions
+    private final TrainingLog trainingLog = new TrainingLog(); // Sessions recorded with their times and hours
+    private final AtomicInteger version = new AtomicInteger(); // Bumped after every change to the totals
+    private volatile Stats stats; // Null until first read
+
+    public Player(String name, int age, String role) {
+        super(name, age);
+        this.role = role;
+    }
+
+    // Used when restoring a saved club, where the totals are already known
+    public Player(String name, int age, String role, int matchesPlayed, int runsScored, int wicketsTaken,
+            int trainingSessions) {
+        super(name, age);
+        this.role = role;
+        this.matchesPlayed.add(matchesPlayed);
+        this.runsScored.add(runsScored);
+        this.wicketsTaken.add(wicketsTaken);
+        this.trainingSessions.add(trainingSessions);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    PlayerRegistry getRegistry() {
+        return registry;
+    }
+
+    void register(PlayerRegistry registry, int id) {
+        this.id = id;
+        this.registry = registry;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void playMatch(int runsScored, int wicketsTaken) {
+        matchesPlayed.increment();
+        addMatchFigures(runsScored, wicketsTaken);
+    }
+
+    // Adds runs and wickets from a match that has already been counted, e.g. ball by ball
+    public void addMatchFigures(int runsScored, int wicketsTaken) {
+        this.runsScored.add(runsScored);
+        this.wicketsTaken.add(wicketsTaken);
+        version.incrementAndGet();
+    }
+
+    // Takes back a playMatch with the same figures
+    void revertMatch(int runsScored, int wicketsTaken) {
+        matchesPlayed.decrement();
+        addMatchFigures(-runsScored, -wicketsTaken);
+    }
+
+    public int getMatchesPlayed() {
+        return matchesPlayed.intValue();
+    }
+
+    public int getRunsScored() {
+        return runsScored.intValue();
+    }
+
+    public int getWicketsTaken() {
+        return wicketsTaken.intValue();
+    }
+
+    // Methods for training sessions
+    public void attendTrainingSession() {
+        trainingSessions.increment();
+        version.incrementAndGet();
+    }
+
+    // Counts the session and logs how long it took, in minutes
+    public void recordTrainingSession(long time, int minutes, int battingMinutes, int bowlingMinutes) {
+        trainingLog.record(time, minutes, battingMinutes, bowlingMinutes);
+        attendTrainingSession();
+    }
+
+    void removeLastTrainingSession() {
+        trainingLog.removeLast();
+        trainingSessions.decrement();
+        version.incrementAndGet();
+    }
+
+    // Used when restoring a saved club, where the session is already in the count
+    void restoreTrainingSession(long time, int minutes, int battingMinutes, int bowlingMinutes) {
+        trainingLog.record(time, minutes, battingMinutes, bowlingMinutes);
+    }
+
+    public int getTrainingSessions() {
+        return trainingSessions.intValue();
+    }
+
+    public TrainingLog getTrainingLog() {
+        return trainingLog;
+    }
+
+    // Runs per match played. There is no record of dismissals, so this is not the usual
+    // runs per dismissal, and strike rate and economy need balls, which are not kept.
+    public double getBattingAverage() {
+        return getStats().battingAverage;
+    }
+
+    public double getWicketsPerMatch() {
+        return getStats().wicketsPerMatch;
+    }
+
+    private Stats getStats() {
+        int current = version.get(); // Read before the totals, so a change made meanwhile shows as a newer version
+        Stats cached = stats;
+        if (cached != null && cached.version == current) {
+            return cached;
+        }
+        int matches = getMatchesPlayed();
+        int runs = getRunsScored();
+        int wickets = getWicketsTaken();
+        String display = super.toString() + ", Role: " + role + ", Matches Played: " + matches +
+                ", Runs Scored: " + runs + ", Wickets Taken: " + wickets +
+                ", Training Sessions: " + getTrainingSessions();
+        cached = new Stats(current, matches == 0 ? 0 : (double) runs / matches,
+                matches == 0 ? 0 : (double) wickets / matches, display);
+        stats = cached;
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        return getStats().display;
+    }
+}
+
+// Shared by every match against the opponent, so it is updated from many scorers at once
+class OpponentStats {
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder wickets = new LongAdder();
+    private final LongAdder matchesPlayed = new LongAdder();
+
+    public void matchScheduled() {
+        matchesPlayed.increment();
+    }
+
+    public void matchUnscheduled() {
+        matchesPlayed.decrement();
+    }
+
+    // Called with the change in a player's figures so re-recorded performances are not counted twice
+    public void recordPerformance(int runsDelta, int wicketsDelta) {
+        runs.add(runsDelta);
+        wickets.add(wicketsDelta);
+    }
+
+    public int getRuns() {
+        return runs.intValue();
+    }
+
+    public int getWickets() {
+        return wickets.intValue();
+    }
+
+    public int getMatchesPlayed() {
+        return matchesPlayed.intValue();
+    }
+}
+
+// Type-ahead search over the names and roles of squad players. The lower-case "name role"
+// text of each player is posted under every three-letter run in it (trigram), and each word
+// is also posted under its first one and two letters, so a query only checks the players in
+// the shortest posting list for its keys. Keys are packed into an int and held in an open
+// addressing table; letters past U+03FF can share a key, which is harmless because every
+// candidate is checked against its text. A removed player is dropped from the results at
+// once and from the postings when stale entries outnumber live ones. Not thread-safe; the
+// owning PlayerRegistry guards it.
+class PlayerSearchIndex {
+    private static final char WORD_START = '\u0000';
+    private static final int MIN_PURGE = 1024;
+
+    private static final class Posting {
+        final int key;
+        int[] ids = new int[4];
+        int size;
+
+        Posting(int key) {
+            this.key = key;
+        }
+    }
+
+    private String[] texts = new String[16]; // id -> searchable text, null when not in the index
+    private boolean[] posted = new boolean[16]; // id -> the postings still hold this id
+    private Posting[] table = new Posting[1024];
+    private int postingCount;
+    private int liveCount;
+    private int staleCount;
+
+    public void add(Player player) {
+        int id = player.getId();
+        if (id >= texts.length) {
+            int capacity = Math.max(texts.length * 2, id + 1);
+            texts = Arrays.copyOf(texts, capacity);
+            posted = Arrays.copyOf(posted, capacity);
+        }
+        if (texts[id] != null) {
+            return;
+        }
+        // Names and roles never change, so postings left from an earlier add are still right
+        String text = (player.getName() + " " + player.getRole()).toLowerCase(Locale.ROOT);
+        texts[id] = text;
+        liveCount++;
+        if (posted[id]) {
+            staleCount--;
+            return;
+        }
+        posted[id] = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (startsWord(text, i)) {
+                post(key(WORD_START, WORD_START, c), id);
+                if (i + 1 < text.length()) {
+                    post(key(WORD_START, c, text.charAt(i + 1)), id);
+                }
+            }
+            if (i + 2 < text.length()) {
+                post(key(c, text.charAt(i + 1), text.charAt(i + 2)), id);
+            }
+        }
+    }
+
+    public void remove(Player player) {
+        int id = player.getId();
+        if (id >= texts.length || texts[id] == null) {
+            return;
+        }
+        texts[id] = null;
+        liveCount--;
+        staleCount++;
+        if (staleCount > MIN_PURGE && staleCount > liveCount) {
+            purge();
+        }
+    }
+
+    // Ids of up to limit players whose text contains the query, in ascending order. Queries of
+    // one or two letters only match at the start of a word.
+    public int[] search(String query, int limit) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        Posting candidates;
+        if (q.length() == 1) {
+            candidates = find(key(WORD_START, WORD_START, q.charAt(0)));
+        } else if (q.length() == 2) {
+            candidates = find(key(WORD_START, q.charAt(0), q.charAt(1)));
+        } else {
+            candidates = null;
+            for (int i = 0; i + 2 < q.length(); i++) {
+                Posting posting = find(key(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2)));
+                if (posting == null) {
+                    return new int[0];
+                }
+                if (candidates == null || posting.size < candidates.size) {
+                    candidates = posting;
+                }
+            }
+        }
+        if (candidates == null) {
+            return new int[0];
+        }
+        int[] result = new int[Math.min(limit, candidates.size)];
+        int count = 0;
+        for (int i = 0; i < candidates.size && count < result.length; i++) {
+            int id = candidates.ids[i];
+            String text = texts[id];
+            if (text != null && matches(text, q)) {
+                result[count++] = id;
+            }
+        }
+        Arrays.sort(result, 0, count);
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static boolean matches(String text, String q) {
+        if (q.length() >= 3) {
+            return text.contains(q);
+        }
+        for (int i = text.indexOf(q); i >= 0; i = text.indexOf(q, i + 1)) {
+            if (startsWord(text, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWord(String text, int i) {
+        return Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    private void post(int key, int id) {
+        Posting posting = find(key);
+        if (posting == null) {
+            if (postingCount * 2 >= table.length) {
+                resize(table.length * 2);
+            }
+            posting = new Posting(key);
+            table[slot(table, key)] = posting;
+            postingCount++;
+        }
+        // A player's keys are posted together, so a repeated key would be the last entry
+        if (posting.size > 0 && posting.ids[posting.size - 1] == id) {
+            return;
+        }
+        if (posting.size == posting.ids.length) {
+            posting.ids = Arrays.copyOf(posting.ids, posting.size * 2);
+        }
+        posting.ids[posting.size++] = id;
+    }
+
+    private Posting find(int key) {
+        return table[slot(table, key)];
+    }
+
+    // The slot holding the key, or the free slot where it would go
+    private static int slot(Posting[] table, int key) {
+        int mask = table.length - 1;
+        // The top bits of the product are the best mixed, so take as many of them as the table needs
+        int slot = (key * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+        while (table[slot] != null && table[slot].key != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        Posting[] resized = new Posting[capacity];
+        for (Posting posting : table) {
+            if (posting != null) {
+                resized[slot(resized, posting.key)] = posting;
+            }
+        }
+        table = resized;
+    }
+
+    private void purge() {
+        for (Posting posting : table) {
+            if (posting == null) {
+                continue;
+            }
+            int end = 0;
+            for (int i = 0; i < posting.size; i++) {
+                if (texts[posting.ids[i]] != null) {
+                    posting.ids[end++] = posting.ids[i];
+                }
+            }
+            posting.size = end;
+        }
+        for (int id = 0; id < texts.length; id++) {
+            posted[id] = texts[id] != null;
+        }
+        staleCount = 0;
+    }
+
+    private static int key(char a, char b, char c) {
+        return (a & 0x3FF) << 20 | (b & 0x3FF) << 10 | (c & 0x3FF);
+    }
+}
+
+// Every player a club has registered, indexed by id. Ids are handed out in order and never
+// reused, so the id -> player index is a plain array and removed players still resolve for
+// old match records. The squad keeps its order in an array where removal leaves a gap that
+// is closed up once gaps make up half of it. Changes lock the registry; looking a player up
+// by id does not, since a player is stored before the count that makes their id valid.
+class PlayerRegistry {
+    private volatile Player[] byId = new Player[16];
+    private int[] squadSlots = new int[16]; // id -> position in squad, -1 when not in the squad
+    private volatile int registeredCount;
+    private Player[] squad = new Player[16];
+    private int squadEnd;
+    private int squadSize;
+    private final Map<String, java.util.List<Player>> byName = new HashMap<>();
+    private volatile java.util.List<Player> squadView; // Read-only copy of the squad, rebuilt after it changes
+    private PlayerSearchIndex searchIndex; // Built by prepareSearch or the first search, then kept up to date
+
+    // Gives the player an id without adding them to the squad
+    public int register(Player player) {
+        if (player.getRegistry() == this) {
+            return player.getId();
+        }
+        synchronized (this) {
+            return registerLocked(player);
+        }
+    }
+
+    private int registerLocked(Player player) {
+        PlayerRegistry registry = player.getRegistry();
+        if (registry == this) {
+            return player.getId();
+        }
+        if (registry != null) {
+            throw new IllegalArgumentException(player.getName() + " is registered with another club");
+        }
+        int id = registeredCount;
+        if (id == byId.length) {
+            byId = Arrays.copyOf(byId, id * 2);
+            squadSlots = Arrays.copyOf(squadSlots, id * 2);
+        }
+        byId[id] = player;
+        squadSlots[id] = -1;
+        player.register(this, id);
+        registeredCount = id + 1;
+        return id;
+    }
+
+    public synchronized void add(Player player) {
+        int id = registerLocked(player);
+        if (squadSlots[id] >= 0) {
+            return;
+        }
+        if (squadEnd == squad.length) {
+            if (squadSize < squadEnd / 2) {
+                compact();
+            } else {
+                squad = Arrays.copyOf(squad, squad.length * 2);
+            }
+        }
+        squadSlots[id] = squadEnd;
+        squad[squadEnd++] = player;
+        squadSize++;
+        squadView = null;
+        byName.computeIfAbsent(player.getName(), k -> new ArrayList<>(1)).add(player);
+        if (searchIndex != null) {
+            searchIndex.add(player);
+        }
+    }
+
+    public synchronized boolean remove(Player player) {
+        if (!contains(player)) {
+            return false;
+        }
+        int id = player.getId();
+        squad[squadSlots[id]] = null;
+        squadSlots[id] = -1;
+        squadSize--;
+        squadView = null;
+        java.util.List<Player> namesakes = byName.get(player.getName());
+        namesakes.remove(player);
+        if (namesakes.isEmpty()) {
+            byName.remove(player.getName());
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(player);
+        }
+        if (squadEnd > 16 && squadSize < squadEnd / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(Player player) {
+        return player.getRegistry() == this && squadSlots[player.getId()] >= 0;
+    }
+
+    public Player get(int id) {
+        if (id < 0 || id >= registeredCount) {
+            throw new IndexOutOfBoundsException("No player with id " + id);
+        }
+        return byId[id];
+    }
+
+    public int getRegisteredCount() {
+        return registeredCount;
+    }
+
+    public synchronized java.util.List<Player> findByName(String name) {
+        java.util.List<Player> namesakes = byName.get(name);
+        return namesakes == null ? Collections.emptyList() : new ArrayList<>(namesakes);
+    }
+
+    public synchronized int size() {
+        return squadSize;
+    }
+
+    // Up to limit squad players in id order whose name or role contains the query; a blank
+    // query lists the squad from the start. See PlayerSearchIndex for how short queries match.
+    public synchronized java.util.List<Player> search(String query, int limit) {
+        java.util.List<Player> result = new ArrayList<>();
+        if (query.isBlank()) {
+            for (int i = 0; i < squadEnd && result.size() < limit; i++) {
+                if (squad[i] != null) {
+                    result.add(squad[i]);
+                }
+            }
+            return result;
+        }
+        prepareSearch();
+        for (int id : searchIndex.search(query, limit)) {
+            result.add(byId[id]);
+        }
+        return result;
+    }
+
+    // Builds the search index now rather than at the first search
+    public synchronized void prepareSearch() {
+        if (searchIndex == null) {
+            searchIndex = new PlayerSearchIndex();
+            for (int i = 0; i < squadEnd; i++) {
+                if (squad[i] != null) {
+                    searchIndex.add(squad[i]);
+                }
+            }
+        }
+    }
+
+    // The returned list is never changed afterwards, so it can be kept and shared freely
+    public java.util.List<Player> getSquad() {
+        java.util.List<Player> view = squadView;
+        if (view == null) {
+            view = buildSquadView();
+        }
+        return view;
+    }
+
+    private synchronized java.util.List<Player> buildSquadView() {
+        java.util.List<Player> view = squadView;
+        if (view == null) {
+            java.util.List<Player> result = new ArrayList<>(squadSize);
+            for (int i = 0; i < squadEnd; i++) {
+                if (squad[i] != null) {
+                    result.add(squad[i]);
+                }
+            }
+            view = Collections.unmodifiableList(result);
+            squadView = view;
+        }
+        return view;
+    }
+
+    private void compact() {
+        int end = 0;
+        for (int i = 0; i < squadEnd; i++) {
+            if (squad[i] != null) {
+                squadSlots[squad[i].getId()] = end;
+                squad[end++] = squad[i];
+            }
+        }
+        Arrays.fill(squad, end, squadEnd, null);
+        squadEnd = end;
+    }
+}
+
+// Performances for one match stored column by column: a row per player id, with each
+// statistic in its own int[] so totals are summed without boxing
+class PerformanceTable {
+    public static final int RUNS = 0;
+    public static final int WICKETS = 1;
+    public static final int MATCH_COLUMNS = 2;
+
+    private final int columnCount;
+    private int[] playerIds = new int[8];
+    private int[][] columns;
+    private int[] rowIndex = new int[16]; // open addressing, player id -> row + 1 (0 marks a free slot)
+    private int size;
+
+    public PerformanceTable() {
+        this(MATCH_COLUMNS);
+    }
+
+    public PerformanceTable(int columnCount) {
+        this.columnCount = columnCount;
+        columns = new int[columnCount][8];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPlayerId(int row) {
+        return playerIds[row];
+    }
+
+    public int get(int row, int column) {
+        return columns[column][row];
+    }
+
+    public void set(int row, int column, int value) {
+        columns[column][row] = value;
+    }
+
+    public void add(int row, int column, int delta) {
+        columns[column][row] += delta;
+    }
+
+    public int rowOf(int playerId) {
+        int mask = rowIndex.length - 1;
+        for (int slot = mix(playerId) & mask; rowIndex[slot] != 0; slot = (slot + 1) & mask) {
+            if (playerIds[rowIndex[slot] - 1] == playerId) {
+                return rowIndex[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the row for the player, adding an empty one if the player has none yet
+    public int rowFor(int playerId) {
+        int row = rowOf(playerId);
+        if (row >= 0) {
+            return row;
+        }
+        if (size == playerIds.length) {
+            playerIds = Arrays.copyOf(playerIds, size * 2);
+            for (int column = 0; column < columnCount; column++) {
+                columns[column] = Arrays.copyOf(columns[column], size * 2);
+            }
+        }
+        row = size++;
+        playerIds[row] = playerId;
+        if (size * 2 > rowIndex.length) {
+            rowIndex = new int[rowIndex.length * 2];
+            for (int i = 0; i < size; i++) {
+                insertIndex(i);
+            }
+        } else {
+            insertIndex(row);
+        }
+        return row;
+    }
+
+    // Drops a row, e.g. when the performance that added it is undone. Later rows move up one,
+    // so rows stay in the order they were added.
+    public void removeRow(int row) {
+        int mask = rowIndex.length - 1;
+        int slot = mix(playerIds[row]) & mask;
+        while (rowIndex[slot] != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+        // Backward shift deletion: move later entries of the probe run into the gap when
+        // their home slot does not lie between the gap and where they are now
+        rowIndex[slot] = 0;
+        for (int next = (slot + 1) & mask; rowIndex[next] != 0; next = (next + 1) & mask) {
+            int home = mix(playerIds[rowIndex[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                rowIndex[slot] = rowIndex[next];
+                rowIndex[next] = 0;
+                slot = next;
+            }
+        }
+        for (int i = 0; i < rowIndex.length; i++) {
+            if (rowIndex[i] > row + 1) {
+                rowIndex[i]--;
+            }
+        }
+        System.arraycopy(playerIds, row + 1, playerIds, row, size - row - 1);
+        for (int column = 0; column < columnCount; column++) {
+            System.arraycopy(columns[column], row + 1, columns[column], row, size - row - 1);
+            columns[column][size - 1] = 0;
+        }
+        size--;
+    }
+
+    public long sum(int column) {
+        long total = 0;
+        int[] values = columns[column];
+        for (int row = 0; row < size; row++) {
+            total += values[row];
+        }
+        return total;
+    }
+
+    private void insertIndex(int row) {
+        int mask = rowIndex.length - 1;
+        int slot = mix(playerIds[row]) & mask;
+        while (rowIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        rowIndex[slot] = row + 1;
+    }
+
+    private static int mix(int id) {
+        return id * 0x9E3779B9;
+    }
+}
+
+enum MatchStatus {
+    SCHEDULED,
+    PLAYED,
+    CANCELLED
+}
+
+// Each match guards its own performance table, so scorers on different matches never wait
+// for each other. Player and opponent totals are updated outside the lock.
+class Match {
+    interface PerformanceVisitor {
+        void visit(int playerId, int runs, int wickets);
+    }
+
+    private int index = -1; // Position in the club's fixture list
+    private String opponent;
+    private LocalDate date; // Null for a match scheduled without a date
+    private String venue; // Null when not given
+    private volatile MatchStatus status = MatchStatus.SCHEDULED;
+    private PerformanceTable performances;
+    private PlayerRegistry players;
+    private OpponentStats opponentStats;
+    private volatile Map<String, Integer> runsView; // Read-only maps built on first use after a change
+    private volatile Map<String, Integer> wicketsView;
+
+    // Matches come from Club.scheduleMatch, which passes the club's registry, so a player
+    // recorded here is always one of the club's own
+    public Match(String opponent, OpponentStats opponentStats, PlayerRegistry players) {
+        this(opponent, null, null, opponentStats, players);
+    }
+
+    public Match(String opponent, LocalDate date, String venue, OpponentStats opponentStats, PlayerRegistry players) {
+        this.opponent = opponent;
+        this.date = date;
+        this.venue = venue;
+        this.opponentStats = opponentStats;
+        this.players = players;
+        performances = new PerformanceTable();
+    }
+
+    // Sets the player's figures for the match. Recording a player again replaces their figures,
+    // so their totals only change by the difference and the match is not counted twice.
+    public void addPlayerPerformance(Player player, int runsScored, int wicketsTaken) {
+        int playerId = players.register(player);
+        int previousRuns = 0;
+        int previousWickets = 0;
+        boolean hadRow;
+        synchronized (this) {
+            int row = performances.rowOf(playerId);
+            hadRow = row >= 0;
+            if (hadRow) {
+                previousRuns = performances.get(row, PerformanceTable.RUNS);
+                previousWickets = performances.get(row, PerformanceTable.WICKETS);
+            }
+            setPerformance(playerId, runsScored, wicketsTaken);
+        }
+        if (hadRow) {
+            player.addMatchFigures(runsScored - previousRuns, wicketsTaken - previousWickets);
+        } else {
+            player.playMatch(runsScored, wicketsTaken);
+        }
+    }
+
+    // Restores a saved performance without adding it to the player's totals a second time
+    public void restorePerformance(int playerId, int runsScored, int wicketsTaken) {
+        setPerformance(playerId, runsScored, wicketsTaken);
+    }
+
+    private synchronized void setPerformance(int playerId, int runsScored, int wicketsTaken) {
+        int row = performances.rowFor(playerId);
+        opponentStats.recordPerformance(runsScored - performances.get(row, PerformanceTable.RUNS),
+                wicketsTaken - performances.get(row, PerformanceTable.WICKETS));
+        performances.set(row, PerformanceTable.RUNS, runsScored);
+        performances.set(row, PerformanceTable.WICKETS, wicketsTaken);
+        runsView = null;
+        wicketsView = null;
+    }
+
+    // Takes back an addPlayerPerformance: the row gets the figures it had before and the
+    // player's totals lose the difference, or, if the performance added the row, the row is
+    // dropped and the player's totals lose the match again. Throws
+    // IllegalStateException without changing anything if the row no longer holds the figures
+    // that were recorded, e.g. because a delivery feed has added to them since.
+    public void revertPerformance(Player player, int runsScored, int wicketsTaken, int previousRuns,
+            int previousWickets, boolean hadRow) {
+        synchronized (this) {
+            int row = performances.rowOf(player.getId());
+            if (row < 0) {
+                throw new IllegalStateException(player.getName() + " has no performance in this match");
+            }
+            if (performances.get(row, PerformanceTable.RUNS) != runsScored
+                    || performances.get(row, PerformanceTable.WICKETS) != wicketsTaken) {
+                throw new IllegalStateException(player.getName()
+                        + "'s figures in this match have changed since they were recorded");
+            }
+            if (!hadRow) {
+                opponentStats.recordPerformance(-runsScored, -wicketsTaken);
+                performances.removeRow(row);
+                runsView = null;
+                wicketsView = null;
+            } else {
+                setPerformance(player.getId(), previousRuns, previousWickets);
+            }
+        }
+        if (hadRow) {
+            player.addMatchFigures(previousRuns - runsScored, previousWickets - wicketsTaken);
+        } else {
+            player.revertMatch(runsScored, wicketsTaken);
+        }
+    }
+
+    // Adds the figures from index from up to to under one lock. The first figures for a player
+    // count as their appearance in the match; later ones only add to their totals.
+    public void addFigures(int[] playerIds, int[] runs, int[] wickets, int from, int to) {
+        int runsTotal = 0;
+        int wicketsTotal = 0;
+        synchronized (this) {
+            for (int i = from; i < to; i++) {
+                int row = performances.rowOf(playerIds[i]);
+                Player player = players.get(playerIds[i]);
+                if (row < 0) {
+                    row = performances.rowFor(playerIds[i]);
+                    player.playMatch(runs[i], wickets[i]);
+                } else {
+                    player.addMatchFigures(runs[i], wickets[i]);
+                }
+                performances.add(row, PerformanceTable.RUNS, runs[i]);
+                performances.add(row, PerformanceTable.WICKETS, wickets[i]);
+                runsTotal += runs[i];
+                wicketsTotal += wickets[i];
+            }
+            runsView = null;
+            wicketsView = null;
+        }
+        opponentStats.recordPerformance(runsTotal, wicketsTotal);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getOpponent() {
+        return opponent;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getVenue() {
+        return venue;
+    }
+
+    public MatchStatus getStatus() {
+        return status;
+    }
+
+    void setStatus(MatchStatus status) {
+        this.status = status;
+    }
+
+    public synchronized int getPerformanceCount() {
+        return performances.size();
+    }
+
+    public synchronized int getPlayerId(int row) {
+        return performances.getPlayerId(row);
+    }
+
+    public Player getPlayer(int row) {
+        return players.get(getPlayerId(row));
+    }
+
+    public String getPlayerName(int row) {
+        return getPlayer(row).getName();
+    }
+
+    public synchronized int getRuns(int row) {
+        return performances.get(row, PerformanceTable.RUNS);
+    }
+
+    public synchronized int getWickets(int row) {
+        return performances.get(row, PerformanceTable.WICKETS);
+    }
+
+    // Calls the visitor for each row while holding the match lock, so it should be quick
+    public synchronized void forEachPerformance(PerformanceVisitor visitor) {
+        for (int row = 0; row < performances.size(); row++) {
+            visitor.visit(performances.getPlayerId(row), performances.get(row, PerformanceTable.RUNS),
+                    performances.get(row, PerformanceTable.WICKETS));
+        }
+    }
+
+    // The player's row, or -1 if they have no performance in this match
+    public synchronized int findRow(int playerId) {
+        return performances.rowOf(playerId);
+    }
+
+    public synchronized long getTotalRuns() {
+        return performances.sum(PerformanceTable.RUNS);
+    }
+
+    public synchronized long getTotalWickets() {
+        return performances.sum(PerformanceTable.WICKETS);
+    }
+
+    // Read-only and never changed afterwards; a later performance builds a new map. The map is
+    // built and cached under the match lock, so a change cannot clear the cache in between.
+    public Map<String, Integer> getPlayerRunsMap() {
+        Map<String, Integer> view = runsView;
+        if (view == null) {
+            synchronized (this) {
+                view = runsView;
+                if (view == null) {
+                    view = toMap(PerformanceTable.RUNS);
+                    runsView = view;
+                }
+            }
+        }
+        return view;
+    }
+
+    public Map<String, Integer> getPlayerWicketsMap() {
+        Map<String, Integer> view = wicketsView;
+        if (view == null) {
+            synchronized (this) {
+                view = wicketsView;
+                if (view == null) {
+                    view = toMap(PerformanceTable.WICKETS);
+                    wicketsView = view;
+                }
+            }
+        }
+        return view;
+    }
+
+    // Callers hold the match lock
+    private Map<String, Integer> toMap(int column) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int row = 0; row < performances.size(); row++) {
+            map.put(getPlayerName(row), performances.get(row, column));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        return "Match " + (index + 1) + " vs " + opponent + (date == null ? "" : " on " + date)
+                + (venue == null ? "" : " at " + venue) + " (" + status.name().toLowerCase(Locale.ROOT) + ")";
+    }
+}
+
+class Coach extends Person {
+    private int experienceYears;
+
+    public Coach(String name, int age, int experienceYears) {
+        super(name, age);
+        this.experienceYears = experienceYears;
+    }
+
+    public int getExperienceYears() {
+        return experienceYears;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ", Experience: " + experienceYears + " years";
+    }
+}
+
+// Safe to use from several threads. Player and match changes lock only the registry or the
+// match involved. When the club is persisted, each change and its journal record are made
+// while holding the store, so a snapshot never sees one without the other.
+class Club {
+    private String name;
+    private PlayerRegistry players;
+    private volatile Coach coach;
+    private java.util.List<Match> matches; // Guarded by itself
+    private volatile java.util.List<Match> matchesView; // Read-only copy of matches, rebuilt after a match is scheduled
+    private Map<String, OpponentStats> opponentStats; // Running totals per opponent, kept up to date by Match
+    private NavigableMap<Long, Match> calendar; // Dated matches by calendarKey
+    private Map<String, NavigableMap<Long, Match>> opponentCalendars; // The calendar split up by opponent
+    private volatile ClubStore store; // Journals every change when the club is persisted
+
+    public Club(String name, Coach coach) {
+        this.name = name;
+        this.coach = coach;
+        this.players = new PlayerRegistry();
+        this.matches = new ArrayList<>();
+        this.opponentStats = new ConcurrentHashMap<>();
+        this.calendar = new ConcurrentSkipListMap<>();
+        this.opponentCalendars = new ConcurrentHashMap<>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setStore(ClubStore store) {
+        this.store = store;
+    }
+
+    // The lock scheduleMatch and unscheduleMatch hold while a match takes or gives up its place
+    // in the fixture list. Holding it keeps getMatchCount() the index the next match will get.
+    Object getScheduleLock() {
+        ClubStore store = this.store;
+        return store != null ? store : matches;
+    }
+
+    public void addPlayer(Player player) {
+        long start = ClubMetrics.ADD_PLAYER.start();
+        try {
+            ClubStore store = this.store;
+            if (store == null) {
+                players.add(player);
+                return;
+            }
+            ClubStore.checkRecordFits(player.getName(), player.getRole());
+            synchronized (store) {
+                players.add(player);
+                store.playerAdded(player);
+            }
+        } finally {
+            ClubMetrics.ADD_PLAYER.stop(start);
+        }
+    }
+
+    public void removePlayer(Player player) {
+        long start = ClubMetrics.REMOVE_PLAYER.start();
+        try {
+            ClubStore store = this.store;
+            if (store == null) {
+                players.remove(player);
+                return;
+            }
+            synchronized (store) {
+                if (players.remove(player)) {
+                    store.playerRemoved(player.getId());
+                }
+            }
+        } finally {
+            ClubMetrics.REMOVE_PLAYER.stop(start);
+        }
+    }
+
+    // Gives the player a club id without adding them to the squad
+    public void registerPlayer(Player player) {
+        players.register(player);
+    }
+
+    public boolean isRegistered(Player player) {
+        return player.getRegistry() == players;
+    }
+
+    public boolean isInSquad(Player player) {
+        return players.contains(player);
+    }
+
+    public int getRegisteredPlayerCount() {
+        return players.getRegisteredCount();
+    }
+
+    // Looks up any player registered with the club, including ones since removed from the squad
+    public Player getPlayerById(int id) {
+        return players.get(id);
+    }
+
+    public java.util.List<Player> findPlayers(String name) {
+        return players.findByName(name);
+    }
+
+    // Type-ahead lookup for the player pickers
+    public java.util.List<Player> searchPlayers(String query, int limit) {
+        return players.search(query, limit);
+    }
+
+    // Builds the index behind searchPlayers, which can take a while for a large squad
+    public void prepareSearch() {
+        players.prepareSearch();
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    public java.util.List<Player> getPlayers() {
+        return players.getSquad();
+    }
+
+    public void addCoach(Coach newCoach) {
+        ClubStore store = this.store;
+        if (store == null) {
+            this.coach = newCoach;
+            return;
+        }
+        ClubStore.checkRecordFits(newCoach.getName());
+        synchronized (store) {
+            this.coach = newCoach;
+            store.coachAdded(newCoach);
+        }
+    }
+
+    public void removeCoach() {
+        ClubStore store = this.store;
+        if (store == null) {
+            this.coach = null;
+            return;
+        }
+        synchronized (store) {
+            this.coach = null;
+            store.coachRemoved();
+        }
+    }
+
+    public Coach getCoach() {
+        return coach;
+    }
+
+    // Returns the new match
+    public Match scheduleMatch(String opponent) {
+        return scheduleMatch(opponent, null, null);
+    }
+
+    // Date and venue may be null. Only dated matches are found by the calendar lookups.
+    public Match scheduleMatch(String opponent, LocalDate date, String venue) {
+        ClubStore store = this.store;
+        if (store == null) {
+            return addMatch(opponent, date, venue);
+        }
+        ClubStore.checkRecordFits(opponent, venue);
+        synchronized (store) {
+            Match match = addMatch(opponent, date, venue);
+            store.matchScheduled(opponent, date, venue);
+            return match;
+        }
+    }
+
+    private Match addMatch(String opponent, LocalDate date, String venue) {
+        OpponentStats stats = opponentStats.computeIfAbsent(opponent, k -> new OpponentStats());
+        stats.matchScheduled();
+        Match match = new Match(opponent, date, venue, stats, players);
+        synchronized (matches) {
+            match.setIndex(matches.size());
+            matches.add(match);
+            matchesView = null;
+        }
+        if (date != null) {
+            long key = calendarKey(date, match.getIndex());
+            calendar.put(key, match);
+            opponentCalendars.computeIfAbsent(opponent, k -> new ConcurrentSkipListMap<>()).put(key, match);
+        }
+        return match;
+    }
+
+    // Takes the latest match off the fixture list. It must have no performances left.
+    public void unscheduleMatch(Match match) {
+        ClubStore store = this.store;
+        if (store == null) {
+            removeLastMatch(match);
+            return;
+        }
+        synchronized (store) {
+            removeLastMatch(match);
+            store.matchUnscheduled(match.getIndex());
+        }
+    }
+
+    private void removeLastMatch(Match match) {
+        synchronized (matches) {
+            if (matches.isEmpty() || matches.get(matches.size() - 1) != match) {
+                throw new IllegalStateException("Only the latest match can be unscheduled");
+            }
+            if (match.getPerformanceCount() > 0) {
+                throw new IllegalStateException("Match " + (match.getIndex() + 1) + " has performances");
+            }
+            matches.remove(matches.size() - 1);
+            matchesView = null;
+        }
+        if (match.getDate() != null) {
+            long key = calendarKey(match.getDate(), match.getIndex());
+            calendar.remove(key);
+            opponentCalendars.get(match.getOpponent()).remove(key);
+        }
+        opponentStats.get(match.getOpponent()).matchUnscheduled();
+    }
+
+    public void setMatchStatus(Match match, MatchStatus status) {
+        ClubStore store = this.store;
+        if (store == null) {
+            match.setStatus(status);
+            return;
+        }
+        synchronized (store) {
+            match.setStatus(status);
+            store.matchStatusChanged(match.getIndex(), status);
+        }
+    }
+
+    // The first dated match on or after the day, or null if there is none
+    public Match getNextMatch(LocalDate from) {
+        Map.Entry<Long, Match> entry = calendar.ceilingEntry(calendarKey(from, 0));
+        return entry == null ? null : entry.getValue();
+    }
+
+    // Dated matches from one day to another, both included, in date order
+    public java.util.List<Match> getMatchesBetween(LocalDate from, LocalDate to) {
+        return between(calendar, from, to);
+    }
+
+    // Dated matches against the opponent between two days, e.g. the start and end of a season
+    public java.util.List<Match> getMatchesAgainst(String opponent, LocalDate from, LocalDate to) {
+        NavigableMap<Long, Match> opponentCalendar = opponentCalendars.get(opponent);
+        return opponentCalendar == null ? Collections.emptyList() : between(opponentCalendar, from, to);
+    }
+
+    private static java.util.List<Match> between(NavigableMap<Long, Match> calendar, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(calendar.subMap(calendarKey(from, 0), true, calendarKey(to.plusDays(1), 0), false)
+                .values());
+    }
+
+    // Orders by day, then by position in the fixture list for matches on the same day
+    private static long calendarKey(LocalDate date, int index) {
+        return date.toEpochDay() * (1L << 32) + index;
+    }
+
+    public void recordMatchPerformance(Match match, Player player, int runsScored, int wicketsTaken) {
+        long start = ClubMetrics.RECORD_MATCH_PERFORMANCE.start();
+        try {
+            ClubStore store = this.store;
+            if (store == null) {
+                match.addPlayerPerformance(player, runsScored, wicketsTaken);
+                return;
+            }
+            synchronized (store) {
+                match.addPlayerPerformance(player, runsScored, wicketsTaken);
+                store.performanceRecorded(match.getIndex(), player.getId(), runsScored, wicketsTaken);
+            }
+        } finally {
+            ClubMetrics.RECORD_MATCH_PERFORMANCE.stop(start);
+        }
+    }
+
+    // Takes back a recordMatchPerformance; see Match.revertPerformance
+    public void revertMatchPerformance(Match match, Player player, int runsScored, int wicketsTaken,
+            int previousRuns, int previousWickets, boolean hadRow) {
+        ClubStore store = this.store;
+        if (store == null) {
+            match.revertPerformance(player, runsScored, wicketsTaken, previousRuns, previousWickets, hadRow);
+            return;
+        }
+        synchronized (store) {
+            match.revertPerformance(player, runsScored, wicketsTaken, previousRuns, previousWickets, hadRow);
+            store.performanceReverted(match.getIndex(), player.getId(), runsScored, wicketsTaken, previousRuns,
+                    previousWickets, hadRow);
+        }
+    }
+
+    // Adds ball-by-ball figures for players already registered with the club. The ids are all
+    // checked before anything changes. A saved club adds and journals the figures a slice at a
+    // time, each slice small enough for one journal record.
+    public void addMatchFigures(Match match, int[] playerIds, int[] runs, int[] wickets, int count) {
+        int registered = players.getRegisteredCount();
+        for (int i = 0; i < count; i++) {
+            if (playerIds[i] < 0 || playerIds[i] >= registered) {
+                throw new IllegalArgumentException("No player with id " + playerIds[i]);
+            }
+        }
+        ClubStore store = this.store;
+        if (store == null) {
+            match.addFigures(playerIds, runs, wickets, 0, count);
+            return;
+        }
+        synchronized (store) {
+            for (int from = 0; from < count; from += ClubStore.FIGURES_PER_RECORD) {
+                int to = Math.min(count, from + ClubStore.FIGURES_PER_RECORD);
+                match.addFigures(playerIds, runs, wickets, from, to);
+                store.figuresAdded(match.getIndex(), playerIds, runs, wickets, from, to);
+            }
+        }
+    }
+
+    public void attendTrainingSession(Player player) {
+        ClubStore store = this.store;
+        if (store == null) {
+            player.attendTrainingSession();
+            return;
+        }
+        synchronized (store) {
+            player.attendTrainingSession();
+            store.trainingSessionAttended(player.getId());
+        }
+    }
+
+    // Time is in epoch seconds and must not be before the player's last recorded session
+    public void recordTrainingSession(Player player, long time, int minutes, int battingMinutes,
+            int bowlingMinutes) {
+        ClubStore store = this.store;
+        if (store == null) {
+            player.recordTrainingSession(time, minutes, battingMinutes, bowlingMinutes);
+            return;
+        }
+        synchronized (store) {
+            player.recordTrainingSession(time, minutes, battingMinutes, bowlingMinutes);
+            store.trainingSessionRecorded(player.getId(), time, minutes, battingMinutes, bowlingMinutes);
+        }
+    }
+
+    public void removeLastTrainingSession(Player player) {
+        ClubStore store = this.store;
+        if (store == null) {
+            player.removeLastTrainingSession();
+            return;
+        }
+        synchronized (store) {
+            player.removeLastTrainingSession();
+            store.trainingSessionRemoved(player.getId());
+        }
+    }
+
+    public void displaySquad() {
+        System.out.println("Club: " + name);
+        System.out.println("Coach: " + coach);
+        System.out.println("Players:");
+        for (Player player : getPlayers()) {
+            System.out.println(player);
+        }
+    }
+
+    public void displayMatches() {
+        System.out.println("Matches Scheduled:");
+        for (Match match : getMatches()) {
+            System.out.println("Opponent: " + match.getOpponent());
+        }
+    }
+
+    // The returned list is never changed afterwards, so repeated calls between changes cost nothing
+    public java.util.List<Match> getMatches() {
+        java.util.List<Match> view = matchesView;
+        if (view == null) {
+            synchronized (matches) {
+                view = matchesView;
+                if (view == null) {
+                    view = Collections.unmodifiableList(new ArrayList<>(matches));
+                    matchesView = view;
+                }
+            }
+        }
+        return view;
+    }
+
+    public int getMatchCount() {
+        synchronized (matches) {
+            return matches.size();
+        }
+    }
+
+    public Match getMatch(int index) {
+        synchronized (matches) {
+            return matches.get(index);
+        }
+    }
+
+    public OpponentStats getOpponentStats(String opponent) {
+        return opponentStats.get(opponent);
+    }
+
+    public int calculateRunsAgainstOpponent(String opponent) {
+        long start = ClubMetrics.CALCULATE_RUNS.start();
+        try {
+            OpponentStats stats = opponentStats.get(opponent);
+            return stats == null ? 0 : stats.getRuns();
+        } finally {
+            ClubMetrics.CALCULATE_RUNS.stop(start);
+        }
+    }
+
+    public int calculateWicketsAgainstOpponent(String opponent) {
+        OpponentStats stats = opponentStats.get(opponent);
+        return stats == null ? 0 : stats.getWickets();
+    }
+}
+
+// Undo and redo for the changes made through it. Each change is kept as a small command
+// holding only what is needed to reverse it, e.g. a recorded performance keeps the figures
+// it replaced, never a copy of the club. Commands sit in a ring that drops the oldest once
+// full, so memory is bounded and undo and redo are O(1). Reversing a change goes through
+// Club like any other change, so it is journaled and survives a restart, while the history
+// itself lasts only for the session. Changes made to the club directly are not recorded,
+// and undoing past one of them can fail with IllegalStateException.
+class ClubHistory {
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private abstract static class Command {
+        abstract void undo(Club club);
+
+        abstract void redo(Club club);
+
+        abstract String describe();
+    }
+
+    private static final class AddPlayer extends Command {
+        private final Player player;
+
+        AddPlayer(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        void undo(Club club) {
+            club.removePlayer(player);
+        }
+
+        @Override
+        void redo(Club club) {
+            club.addPlayer(player);
+        }
+
+        @Override
+        String describe() {
+            return "Add Player " + player.getName();
+        }
+    }
+
+    private static final class RemovePlayer extends Command {
+        private final Player player;
+
+        RemovePlayer(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        void undo(Club club) {
+            club.addPlayer(player);
+        }
+
+        @Override
+        void redo(Club club) {
+            club.removePlayer(player);
+        }
+
+        @Override
+        String describe() {
+            return "Remove Player " + player.getName();
+        }
+    }
+
+    // Adding and removing a coach both replace one coach, or none, with another
+    private static final class ReplaceCoach extends Command {
+        private final Coach previous;
+        private final Coach next;
+
+        ReplaceCoach(Coach previous, Coach next) {
+            this.previous = previous;
+            this.next = next;
+        }
+
+        @Override
+        void undo(Club club) {
+            setCoach(club, previous);
+        }
+
+        @Override
+        void redo(Club club) {
+            setCoach(club, next);
+        }
+
+        private static void setCoach(Club club, Coach coach) {
+            if (coach == null) {
+                club.removeCoach();
+            } else {
+                club.addCoach(coach);
+            }
+        }
+
+        @Override
+        String describe() {
+            return next == null ? "Remove Coach " + previous.getName() : "Add Coach " + next.getName();
+        }
+    }
+
+    // Matches are referred to by index because redoing a schedule creates a new Match
+    private static final class ScheduleMatch extends Command {
+        private final int matchIndex;
+        private final String opponent;
+        private final LocalDate date;
+        private final String venue;
+
+        ScheduleMatch(int matchIndex, String opponent, LocalDate date, String venue) {
+            this.matchIndex = matchIndex;
+            this.opponent = opponent;
+            this.date = date;
+            this.venue = venue;
+        }
+
+        @Override
+        void undo(Club club) {
+            club.unscheduleMatch(club.getMatch(matchIndex));
+        }
+
+        @Override
+        void redo(Club club) {
+            club.scheduleMatch(opponent, date, venue);
+        }
+
+        @Override
+        String describe() {
+            return "Schedule Match vs " + opponent;
+        }
+    }
+
+    private static final class RecordPerformance extends Command {
+        private final int matchIndex;
+        private final Player player;
+        private final int runs;
+        private final int wickets;
+        private final int previousRuns;
+        private final int previousWickets;
+        private final boolean hadRow; // Whether the player already had figures in the match
+
+        RecordPerformance(int matchIndex, Player player, int runs, int wickets, int previousRuns,
+                int previousWickets, boolean hadRow) {
+            this.matchIndex = matchIndex;
+            this.player = player;
+            this.runs = runs;
+            this.wickets = wickets;
+            this.previousRuns = previousRuns;
+            this.previousWickets = previousWickets;
+            this.hadRow = hadRow;
+        }
+
+        @Override
+        void undo(Club club) {
+            club.revertMatchPerformance(club.getMatch(matchIndex), player, runs, wickets, previousRuns,
+                    previousWickets, hadRow);
+        }
+
+        @Override
+        void redo(Club club) {
+            club.recordMatchPerformance(club.getMatch(matchIndex), player, runs, wickets);
+        }
+
+        @Override
+        String describe() {
+            return "Record Performance for " + player.getName();
+        }
+    }
+
+    private static final class RecordTrainingSession extends Command {
+        private final Player player;
+        private final long time;
+        private final int minutes;
+        private final int battingMinutes;
+        private final int bowlingMinutes;
+
+        RecordTrainingSession(Player player, long time, int minutes, int battingMinutes, int bowlingMinutes) {
+            this.player = player;
+            this.time = time;
+            this.minutes = minutes;
+            this.battingMinutes = battingMinutes;
+            this.bowlingMinutes = bowlingMinutes;
+        }
+
+        @Override
+        void undo(Club club) {
+            TrainingLog log = player.getTrainingLog();
+            if (log.size() == 0 || log.getLastTime() != time) {
+                throw new IllegalStateException("The training session is no longer the latest one for "
+                        + player.getName());
+            }
+            club.removeLastTrainingSession(player);
+        }
+
+        @Override
+        void redo(Club club) {
+            club.recordTrainingSession(player, time, minutes, battingMinutes, bowlingMinutes);
+        }
+
+        @Override
+        String describe() {
+            return "Record Training Session for " + player.getName();
+        }
+    }
+
+    private final Club club;
+    private final Command[] ring;
+    private int oldest; // Position in ring of the oldest command kept
+    private int size; // Commands kept
+    private int done; // Commands that are applied; those after them can be redone
+    private Runnable listener;
+
+    public ClubHistory(Club club, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be at least 1");
+        }
+        this.club = club;
+        this.ring = new Command[capacity];
+    }
+
+    // Called after every change, undo and redo on the thread that made it
+    public synchronized void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void addPlayer(Player player) {
+        if (club.isInSquad(player)) {
+            return;
+        }
+        club.addPlayer(player);
+        push(new AddPlayer(player));
+    }
+
+    public synchronized void removePlayer(Player player) {
+        if (!club.isInSquad(player)) {
+            return;
+        }
+        club.removePlayer(player);
+        push(new RemovePlayer(player));
+    }
+
+    public synchronized void addCoach(Coach coach) {
+        Coach previous = club.getCoach();
+        club.addCoach(coach);
+        push(new ReplaceCoach(previous, coach));
+    }
+
+    public synchronized void removeCoach() {
+        Coach previous = club.getCoach();
+        if (previous == null) {
+            return;
+        }
+        club.removeCoach();
+        push(new ReplaceCoach(previous, null));
+    }
+
+    public synchronized Match scheduleMatch(String opponent, LocalDate date, String venue) {
+        Match match = club.scheduleMatch(opponent, date, venue);
+        push(new ScheduleMatch(match.getIndex(), opponent, date, venue));
+        return match;
+    }
+
+    public synchronized void recordMatchPerformance(Match match, Player player, int runsScored, int wicketsTaken) {
+        int row = club.isRegistered(player) ? match.findRow(player.getId()) : -1;
+        int previousRuns = row < 0 ? 0 : match.getRuns(row);
+        int previousWickets = row < 0 ? 0 : match.getWickets(row);
+        club.recordMatchPerformance(match, player, runsScored, wicketsTaken);
+        push(new RecordPerformance(match.getIndex(), player, runsScored, wicketsTaken, previousRuns,
+                previousWickets, row >= 0));
+    }
+
+    public synchronized void recordTrainingSession(Player player, long time, int minutes, int battingMinutes,
+            int bowlingMinutes) {
+        club.recordTrainingSession(player, time, minutes, battingMinutes, bowlingMinutes);
+        push(new RecordTrainingSession(player, time, minutes, battingMinutes, bowlingMinutes));
+    }
+
+    public synchronized boolean canUndo() {
+        return done > 0;
+    }
+
+    public synchronized boolean canRedo() {
+        return done < size;
+    }
+
+    // What undo would reverse, or null if there is nothing to undo
+    public synchronized String getUndoDescription() {
+        return done > 0 ? commandAt(done - 1).describe() : null;
+    }
+
+    public synchronized String getRedoDescription() {
+        return done < size ? commandAt(done).describe() : null;
+    }
+
+    // Returns false if there was nothing to undo
+    public synchronized boolean undo() {
+        if (done == 0) {
+            return false;
+        }
+        commandAt(done - 1).undo(club);
+        done--;
+        changed();
+        return true;
+    }
+
+    public synchronized boolean redo() {
+        if (done == size) {
+            return false;
+        }
+        commandAt(done).redo(club);
+        done++;
+        changed();
+        return true;
+    }
+
+    // A new change drops anything that could be redone, then the oldest command if the ring is full
+    private void push(Command command) {
+        for (int i = done; i < size; i++) {
+            ring[(oldest + i) % ring.length] = null;
+        }
+        size = done;
+        if (size == ring.length) {
+            ring[oldest] = null;
+            oldest = (oldest + 1) % ring.length;
+            size--;
+        }
+        ring[(oldest + size) % ring.length] = command;
+        size++;
+        done = size;
+        changed();
+    }
+
+    private Command commandAt(int position) {
+        return ring[(oldest + position) % ring.length];
+    }
+
+    private void changed() {
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
+
+// A player's figures over some set of matches. An innings is a match the player has a
+// performance in; there is no record of dismissals or balls, so averages are per innings.
+class PlayerTotals {
+    private final Player player;
+    private final int innings;
+    private final long runs;
+    private final long wickets;
+
+    public PlayerTotals(Player player, int innings, long runs, long wickets) {
+        this.player = player;
+        this.innings = innings;
+        this.runs = runs;
+        this.wickets = wickets;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public int getInnings() {
+        return innings;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public long getWickets() {
+        return wickets;
+    }
+
+    public double getBattingAverage() {
+        return innings == 0 ? 0 : (double) runs / innings;
+    }
+
+    public double getWicketsPerInnings() {
+        return innings == 0 ? 0 : (double) wickets / innings;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d innings, %d runs (avg %.2f), %d wickets (%.2f per innings)", player.getName(),
+                innings, runs, getBattingAverage(), wickets, getWicketsPerInnings());
+    }
+}
+
+// Figures for every registered player over a club's matches, or only those against one
+// opponent. The matches are split into one chunk per core and summed into per-chunk arrays
+// indexed by player id on parallel streams, then the chunks are added together over ranges
+// of ids the same way. Leaderboards keep a bounded heap of the best n per chunk and merge
+// those, so they never sort the whole squad. Players registered after the computation
+// started are left out.
+class ClubStatistics {
+    private final Club club;
+    private final int[] innings;
+    private final long[] runs;
+    private final long[] wickets;
+
+    private ClubStatistics(Club club, int[] innings, long[] runs, long[] wickets) {
+        this.club = club;
+        this.innings = innings;
+        this.runs = runs;
+        this.wickets = wickets;
+    }
+
+    public static ClubStatistics compute(Club club) {
+        return compute(club, club.getMatches());
+    }
+
+    // Head-to-head figures against one opponent
+    public static ClubStatistics againstOpponent(Club club, String opponent) {
+        java.util.List<Match> matches = new ArrayList<>();
+        for (Match match : club.getMatches()) {
+            if (match.getOpponent().equals(opponent)) {
+                matches.add(match);
+            }
+        }
+        return compute(club, matches);
+    }
+
+    private static ClubStatistics compute(Club club, java.util.List<Match> matches) {
+        int playerCount = club.getRegisteredPlayerCount();
+        int chunks = chunkCount(matches.size());
+        ClubStatistics[] partials = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            ClubStatistics partial = new ClubStatistics(club, new int[playerCount], new long[playerCount],
+                    new long[playerCount]);
+            int end = chunkEnd(chunk, chunks, matches.size());
+            for (int i = chunkEnd(chunk - 1, chunks, matches.size()); i < end; i++) {
+                matches.get(i).forEachPerformance((playerId, matchRuns, matchWickets) -> {
+                    if (playerId < playerCount) {
+                        partial.innings[playerId]++;
+                        partial.runs[playerId] += matchRuns;
+                        partial.wickets[playerId] += matchWickets;
+                    }
+                });
+            }
+            return partial;
+        }).toArray(ClubStatistics[]::new);
+
+        ClubStatistics total = partials[0];
+        if (partials.length > 1) {
+            int idChunks = chunkCount(playerCount);
+            IntStream.range(0, idChunks).parallel().forEach(chunk -> {
+                int end = chunkEnd(chunk, idChunks, playerCount);
+                for (int p = 1; p < partials.length; p++) {
+                    for (int id = chunkEnd(chunk - 1, idChunks, playerCount); id < end; id++) {
+                        total.innings[id] += partials[p].innings[id];
+                        total.runs[id] += partials[p].runs[id];
+                        total.wickets[id] += partials[p].wickets[id];
+                    }
+                }
+            });
+        }
+        return total;
+    }
+
+    // Form over the player's last few innings, newest match first. Looks each match up by
+    // player id, so it stops as soon as enough innings are found.
+    public static PlayerTotals form(Club club, Player player, int lastInnings) {
+        java.util.List<Match> matches = club.getMatches();
+        int innings = 0;
+        long runs = 0;
+        long wickets = 0;
+        for (int i = matches.size() - 1; i >= 0 && innings < lastInnings; i--) {
+            Match match = matches.get(i);
+            int row = match.findRow(player.getId());
+            if (row >= 0) {
+                innings++;
+                runs += match.getRuns(row);
+                wickets += match.getWickets(row);
+            }
+        }
+        return new PlayerTotals(player, innings, runs, wickets);
+    }
+
+    public PlayerTotals getTotals(Player player) {
+        int id = player.getId();
+        if (id < 0 || id >= innings.length) {
+            return new PlayerTotals(player, 0, 0, 0);
+        }
+        return totals(id);
+    }
+
+    // Every player with at least one innings, most runs first
+    public java.util.List<PlayerTotals> getTable() {
+        int count = 0;
+        for (int playerInnings : innings) {
+            if (playerInnings > 0) {
+                count++;
+            }
+        }
+        return topRunScorers(count);
+    }
+
+    public java.util.List<PlayerTotals> topRunScorers(int n) {
+        return top(n, id -> runs[id], 1);
+    }
+
+    public java.util.List<PlayerTotals> topWicketTakers(int n) {
+        return top(n, id -> wickets[id], 1);
+    }
+
+    public java.util.List<PlayerTotals> topBattingAverages(int n, int minInnings) {
+        return top(n, id -> (double) runs[id] / innings[id], Math.max(1, minInnings));
+    }
+
+    public java.util.List<PlayerTotals> topWicketsPerInnings(int n, int minInnings) {
+        return top(n, id -> (double) wickets[id] / innings[id], Math.max(1, minInnings));
+    }
+
+    // Best n players by score, ties going to the lower id
+    private java.util.List<PlayerTotals> top(int n, IntToDoubleFunction score, int minInnings) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        int chunks = chunkCount(innings.length);
+        TopN[] heaps = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            TopN heap = new TopN(n);
+            int end = chunkEnd(chunk, chunks, innings.length);
+            for (int id = chunkEnd(chunk - 1, chunks, innings.length); id < end; id++) {
+                if (innings[id] >= minInnings) {
+                    heap.offer(id, score.applyAsDouble(id));
+                }
+            }
+            return heap;
+        }).toArray(TopN[]::new);
+        TopN best = heaps[0];
+        for (int i = 1; i < heaps.length; i++) {
+            best.merge(heaps[i]);
+        }
+
+        java.util.List<PlayerTotals> result = new ArrayList<>(best.size);
+        for (int id : best.sortedIds()) {
+            result.add(totals(id));
+        }
+        return result;
+    }
+
+    private PlayerTotals totals(int id) {
+        return new PlayerTotals(club.getPlayerById(id), innings[id], runs[id], wickets[id]);
+    }
+
+    private static int chunkCount(int size) {
+        return Math.max(1, Math.min(size / 1024, Runtime.getRuntime().availableProcessors()));
+    }
+
+    // End of the chunk, or 0 for chunk -1 so the start of a chunk is the end of the one before
+    private static int chunkEnd(int chunk, int chunks, int size) {
+        return (int) ((long) size * (chunk + 1) / chunks);
+    }
+
+    // Min-heap of the best n ids seen so far; the root is the worst of them
+    private static final class TopN {
+        final int[] ids;
+        final double[] scores;
+        int size;
+
+        TopN(int n) {
+            ids = new int[n];
+            scores = new double[n];
+        }
+
+        void offer(int id, double score) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0 && worse(id, score, ids[(i - 1) / 2], scores[(i - 1) / 2])) {
+                    ids[i] = ids[(i - 1) / 2];
+                    scores[i] = scores[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                ids[i] = id;
+                scores[i] = score;
+            } else if (worse(ids[0], scores[0], id, score)) {
+                siftDown(id, score, size);
+            }
+        }
+
+        void merge(TopN other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.ids[i], other.scores[i]);
+            }
+        }
+
+        // Best first. Empties the heap.
+        int[] sortedIds() {
+            int[] sorted = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sorted[i] = ids[0];
+                size--;
+                siftDown(ids[size], scores[size], size);
+            }
+            return sorted;
+        }
+
+        // Puts the entry in at the root of the first count entries and sifts it down
+        private void siftDown(int id, double score, int count) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= count) {
+                    break;
+                }
+                if (child + 1 < count && worse(ids[child + 1], scores[child + 1], ids[child], scores[child])) {
+                    child++;
+                }
+                if (!worse(ids[child], scores[child], id, score)) {
+                    break;
+                }
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        private static boolean worse(int id, double score, int otherId, double otherScore) {
+            return score < otherScore || score == otherScore && id > otherId;
+        }
+    }
+}
+
+// Outcome of a MatchSimulator run: how many simulated innings ended on each team total, and
+// how many of them beat the target and saw the bowlers take all ten wickets
+class SimulationResult {
+    private final long innings;
+    private final long[] totals; // totals[t] is the number of innings that ended on exactly t runs
+    private final int target;
+    private final long bowledOut;
+
+    SimulationResult(long innings, long[] totals, int target, long bowledOut) {
+        this.innings = innings;
+        this.totals = totals;
+        this.target = target;
+        this.bowledOut = bowledOut;
+    }
+
+    public long getInnings() {
+        return innings;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public double getMeanTotal() {
+        double sum = 0;
+        for (int total = 0; total < totals.length; total++) {
+            sum += (double) total * totals[total];
+        }
+        return sum / innings;
+    }
+
+    public double getStandardDeviation() {
+        double mean = getMeanTotal();
+        double squares = 0;
+        for (int total = 0; total < totals.length; total++) {
+            squares += (total - mean) * (total - mean) * totals[total];
+        }
+        return Math.sqrt(squares / innings);
+    }
+
+    // The lowest total that at least the given percentage of innings did not beat
+    public int getPercentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * innings));
+        long seen = 0;
+        for (int total = 0; total < totals.length; total++) {
+            seen += totals[total];
+            if (seen >= rank) {
+                return total;
+            }
+        }
+        return totals.length - 1;
+    }
+
+    // Chance of scoring more than the target
+    public double getWinProbability() {
+        long wins = 0;
+        for (int total = Math.max(0, target + 1); total < totals.length; total++) {
+            wins += totals[total];
+        }
+        return (double) wins / innings;
+    }
+
+    public double getTieProbability() {
+        return target >= 0 && target < totals.length ? (double) totals[target] / innings : 0;
+    }
+
+    // Chance that the side's bowlers take all ten wickets
+    public double getBowledOutProbability() {
+        return (double) bowledOut / innings;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Simulated innings: %,d%n"
+                        + "Team total: mean %.1f, standard deviation %.1f%n"
+                        + "Team total: 10%% %d, median %d, 90%% %d%n"
+                        + "Beating %d: %.1f%% (tie %.1f%%)%n"
+                        + "Bowling the opponent out: %.1f%%%n",
+                innings, getMeanTotal(), getStandardDeviation(), getPercentile(10), getPercentile(50),
+                getPercentile(90), target, getWinProbability() * 100, getTieProbability() * 100,
+                getBowledOutProbability() * 100);
+    }
+}
+
+// Monte Carlo what-if for a chosen side against an opponent. Each player's past performances
+// are the distribution to draw from: a simulated innings picks one past performance per
+// player at random and adds them up, so good and bad days come up as often as they did. A
+// player's performances against the opponent are used when there are at least
+// MIN_OPPONENT_INNINGS of them, else all of their performances. A player with totals but no
+// per-match figures, e.g. from before figures were kept per match, plays their average every
+// time, and a player with neither scores nothing.
+//
+// No opponent scores are recorded, so a win is beating a target total given by the caller.
+// Innings are split into a fixed number of chunks run on parallel streams, each chunk with
+// its own SplittableRandom split from one seed before the run, so a seed gives the same
+// result on any number of cores.
+// The inner loop reads flat int arrays and allocates nothing.
+class MatchSimulator {
+    public static final int MIN_OPPONENT_INNINGS = 3;
+    private static final int MAX_CHUNKS = 64;
+    private static final int BATCH_INNINGS = 1 << 16; // Innings between progress reports
+    private static final int ALL_OUT = 10;
+
+    // Past figures of one player, as parallel growable arrays
+    private static final class Samples {
+        int[] runs = new int[8];
+        int[] wickets = new int[8];
+        int size;
+
+        void add(int matchRuns, int matchWickets) {
+            if (size == runs.length) {
+                runs = Arrays.copyOf(runs, size * 2);
+                wickets = Arrays.copyOf(wickets, size * 2);
+            }
+            runs[size] = Math.max(0, matchRuns);
+            wickets[size] = Math.max(0, matchWickets);
+            size++;
+        }
+    }
+
+    private final int players;
+    private final int[] offsets; // The samples of the p-th player run from offsets[p] to offsets[p + 1]
+    private final int[] runs;
+    private final int[] wickets;
+    private final int maxTotal;
+
+    // Every player in the team must be registered with the club
+    public MatchSimulator(Club club, java.util.List<Player> team, String opponent) {
+        players = team.size();
+        int registered = club.getRegisteredPlayerCount();
+        int[] teamIndex = new int[registered]; // Player id -> position in the team + 1, 0 when not picked
+        for (int p = 0; p < players; p++) {
+            Player player = team.get(p);
+            if (!club.isRegistered(player)) {
+                throw new IllegalArgumentException(player.getName() + " does not play for " + club.getName());
+            }
+            teamIndex[player.getId()] = p + 1;
+        }
+        Samples[] all = new Samples[players];
+        Samples[] againstOpponent = new Samples[players];
+        for (int p = 0; p < players; p++) {
+            all[p] = new Samples();
+            againstOpponent[p] = new Samples();
+        }
+        for (Match match : club.getMatches()) {
+            boolean opponentMatch = match.getOpponent().equals(opponent);
+            match.forEachPerformance((playerId, matchRuns, matchWickets) -> {
+                if (playerId < registered && teamIndex[playerId] > 0) {
+                    all[teamIndex[playerId] - 1].add(matchRuns, matchWickets);
+                    if (opponentMatch) {
+                        againstOpponent[teamIndex[playerId] - 1].add(matchRuns, matchWickets);
+                    }
+                }
+            });
+        }
+
+        Samples[] chosen = new Samples[players];
+        offsets = new int[players + 1];
+        for (int p = 0; p < players; p++) {
+            chosen[p] = againstOpponent[p].size >= MIN_OPPONENT_INNINGS ? againstOpponent[p] : all[p];
+            if (chosen[p].size == 0) {
+                Player player = team.get(p);
+                chosen[p].add((int) Math.round(player.getBattingAverage()),
+                        (int) Math.round(player.getWicketsPerMatch()));
+            }
+            offsets[p + 1] = offsets[p] + chosen[p].size;
+        }
+        runs = new int[offsets[players]];
+        wickets = new int[offsets[players]];
+        int best = 0;
+        for (int p = 0; p < players; p++) {
+            System.arraycopy(chosen[p].runs, 0, runs, offsets[p], chosen[p].size);
+            System.arraycopy(chosen[p].wickets, 0, wickets, offsets[p], chosen[p].size);
+            int playerBest = 0;
+            for (int i = 0; i < chosen[p].size; i++) {
+                playerBest = Math.max(playerBest, chosen[p].runs[i]);
+            }
+            best += playerBest;
+        }
+        maxTotal = best;
+    }
+
+    // The number of past performances the player at this position in the team is drawn from
+    public int getSampleCount(int position) {
+        return offsets[position + 1] - offsets[position];
+    }
+
+    // progress is called from the worker threads with the number of innings done so far, every
+    // BATCH_INNINGS or so; returning false stops the run, which then returns null
+    public SimulationResult run(long innings, int target, long seed, LongPredicate progress) {
+        if (innings < 1) {
+            throw new IllegalArgumentException("At least one innings must be simulated");
+        }
+        int chunks = (int) Math.min(MAX_CHUNKS, (innings + BATCH_INNINGS - 1) / BATCH_INNINGS);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            randoms[chunk] = root.split();
+        }
+        AtomicLong done = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        // Each chunk counts its innings by total, with the bowled out count in the extra last slot
+        long[][] partials = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            long[] counts = new long[maxTotal + 2];
+            long end = innings / chunks * (chunk + 1) + Math.min(chunk + 1, innings % chunks);
+            long start = innings / chunks * chunk + Math.min(chunk, innings % chunks);
+            while (start < end && !stopped.get()) {
+                long count = Math.min(BATCH_INNINGS, end - start);
+                simulate(randoms[chunk], count, counts);
+                start += count;
+                if (!progress.test(done.addAndGet(count))) {
+                    stopped.set(true);
+                }
+            }
+            return counts;
+        }).toArray(long[][]::new);
+        if (stopped.get()) {
+            return null;
+        }
+
+        long[] totals = new long[maxTotal + 1];
+        long bowledOut = 0;
+        for (long[] counts : partials) {
+            for (int total = 0; total <= maxTotal; total++) {
+                totals[total] += counts[total];
+            }
+            bowledOut += counts[maxTotal + 1];
+        }
+        return new SimulationResult(innings, totals, target, bowledOut);
+    }
+
+    private void simulate(SplittableRandom random, long innings, long[] counts) {
+        long bowledOut = 0;
+        for (long i = 0; i < innings; i++) {
+            int total = 0;
+            int taken = 0;
+            for (int p = 0; p < players; p++) {
+                int sample = offsets[p] + random.nextInt(offsets[p + 1] - offsets[p]);
+                total += runs[sample];
+                taken += wickets[sample];
+            }
+            counts[total]++;
+            if (taken >= ALL_OUT) {
+                bowledOut++;
+            }
+        }
+        counts[maxTotal + 1] += bowledOut;
+    }
+}
+
+// Append-only log of club changes, kept in a memory-mapped file. A record is
+// [type byte][payload length int][payload]; the type byte is written last so a
+// record cut short by a crash reads as the end of the log.
+class ClubJournal implements Closeable {
+    private static final int MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int HEADER_SIZE = 16; // magic, generation, reserved
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final int INITIAL_SIZE = 1 << 20;
+
+    interface RecordHandler {
+        void apply(byte type, ByteBuffer payload);
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long generation;
+    private int position;
+
+    public ClubJournal(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+        position = HEADER_SIZE;
+        if (buffer.getInt(0) == MAGIC) {
+            generation = buffer.getLong(4);
+            while (position + RECORD_HEADER_SIZE <= buffer.limit() && buffer.get(position) != 0) {
+                position += RECORD_HEADER_SIZE + buffer.getInt(position + 1);
+            }
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(4, generation);
+        }
+    }
+
+    // The snapshot generation this log continues from
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void append(byte type, ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        ensureCapacity(position + RECORD_HEADER_SIZE + length);
+        buffer.putInt(position + 1, length);
+        buffer.put(position + RECORD_HEADER_SIZE, payload, payload.position(), length);
+        buffer.put(position, type);
+        position += RECORD_HEADER_SIZE + length;
+    }
+
+    public void replay(RecordHandler handler) {
+        ByteBuffer view = buffer.duplicate();
+        int offset = HEADER_SIZE;
+        while (offset < position) {
+            int start = offset + RECORD_HEADER_SIZE;
+            int end = start + buffer.getInt(offset + 1);
+            view.limit(end).position(start);
+            handler.apply(buffer.get(offset), view);
+            offset = end;
+        }
+    }
+
+    // Empties the log once everything in it is covered by the snapshot of the given generation
+    public void reset(long generation) {
+        byte[] zeros = new byte[8192];
+        for (int offset = HEADER_SIZE; offset < position; offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, position - offset));
+        }
+        buffer.putLong(4, generation);
+        buffer.force();
+        this.generation = generation;
+        position = HEADER_SIZE;
+    }
+
+    private void ensureCapacity(int required) throws IOException {
+        if (required > buffer.limit()) {
+            long size = Math.max((long) buffer.limit() * 2, required);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
+
+// Saves a club as a compacted snapshot plus a journal of the changes made since.
+// Players are referred to by id and matches by their position in the club's list.
+// Club holds this store's lock while it makes a change and journals it.
+class ClubStore implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x434C4232; // "CLB2"
+    private static final int UNDATED_SNAPSHOT_MAGIC = 0x434C5542; // "CLUB", written before matches had dates
+    private static final int SNAPSHOT_INTERVAL = 100_000; // journal records between snapshots
+
+    private static final byte ADD_PLAYER = 1;
+    private static final byte REMOVE_PLAYER = 2;
+    private static final byte ADD_COACH = 3;
+    private static final byte REMOVE_COACH = 4;
+    private static final byte SCHEDULE_MATCH = 5;
+    private static final byte RECORD_PERFORMANCE = 6;
+    private static final byte TRAINING_SESSION = 7;
+    private static final byte ADD_FIGURES = 8;
+    private static final byte TRAINING_LOG = 9;
+    private static final byte SCHEDULE_FIXTURE = 10;
+    private static final byte MATCH_STATUS = 11;
+    private static final byte UNSCHEDULE_MATCH = 12;
+    private static final byte REVERT_PERFORMANCE = 13;
+    private static final byte REMOVE_TRAINING_SESSION = 14;
+
+    private static final int RECORD_CAPACITY = 1 << 16;
+    // Rows of figures that fit in one record after the match index and row count
+    static final int FIGURES_PER_RECORD = (RECORD_CAPACITY - 8) / 12;
+    // Numbers stored next to the strings in a record: at most an id and an age, or a date and
+    // the marker for a missing venue
+    private static final int MAX_FIXED_BYTES = 16;
+
+    // Snapshots that fall due as records are appended are written here, not on the thread that
+    // appended, which may be the Event Dispatch Thread. Every store shares the one thread.
+    private static final ExecutorService SNAPSHOTS = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "club-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File snapshotFile;
+    private final ClubJournal journal;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_CAPACITY);
+    private Club club;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private Future<?> pendingSnapshot; // Set while a snapshot is queued or being written
+
+    public ClubStore(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create data directory " + directory);
+        }
+        snapshotFile = new File(directory, "club.snapshot");
+        journal = new ClubJournal(new File(directory, "club.journal"));
+    }
+
+    // Loads the latest snapshot and replays the journal on top of it
+    public Club load(String clubName) throws IOException {
+        Club loaded = snapshotFile.exists() ? readSnapshot() : new Club(clubName, null);
+        if (journal.getGeneration() == generation) {
+            journal.replay((type, payload) -> {
+                apply(loaded, type, payload);
+                recordsSinceSnapshot++;
+            });
+        } else {
+            // The snapshot was written but the journal was not reset before shutdown
+            journal.reset(generation);
+        }
+        club = loaded;
+        club.setStore(this);
+        return club;
+    }
+
+    // Throws IllegalArgumentException if a record holding these strings would not fit in the
+    // journal. Club calls it before changing anything, so what cannot be saved is not applied.
+    static void checkRecordFits(String... values) {
+        long size = MAX_FIXED_BYTES;
+        for (String value : values) {
+            if (value != null) {
+                size += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        if (size > RECORD_CAPACITY) {
+            throw new IllegalArgumentException("Too long to save: names, roles, opponents and venues must fit in "
+                    + (RECORD_CAPACITY - MAX_FIXED_BYTES) + " bytes together");
+        }
+    }
+
+    public synchronized void playerAdded(Player player) {
+        record.clear();
+        record.putInt(player.getId());
+        putString(player.getName());
+        record.putInt(player.getAge());
+        putString(player.getRole());
+        append(ADD_PLAYER);
+    }
+
+    public synchronized void playerRemoved(int playerId) {
+        record.clear();
+        record.putInt(playerId);
+        append(REMOVE_PLAYER);
+    }
+
+    public synchronized void coachAdded(Coach coach) {
+        record.clear();
+        putString(coach.getName());
+        record.putInt(coach.getAge());
+        record.putInt(coach.getExperienceYears());
+        append(ADD_COACH);
+    }
+
+    public synchronized void coachRemoved() {
+        record.clear();
+        append(REMOVE_COACH);
+    }
+
+    public synchronized void matchScheduled(String opponent, LocalDate date, String venue) {
+        record.clear();
+        putString(opponent);
+        record.putLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+        putNullableString(venue);
+        append(SCHEDULE_FIXTURE);
+    }
+
+    public synchronized void matchUnscheduled(int matchIndex) {
+        record.clear();
+        record.putInt(matchIndex);
+        append(UNSCHEDULE_MATCH);
+    }
+
+    public synchronized void matchStatusChanged(int matchIndex, MatchStatus status) {
+        record.clear();
+        record.putInt(matchIndex);
+        record.put((byte) status.ordinal());
+        append(MATCH_STATUS);
+    }
+
+    public synchronized void performanceRecorded(int matchIndex, int playerId, int runsScored, int wicketsTaken) {
+        record.clear();
+        record.putInt(matchIndex);
+        record.putInt(playerId);
+        record.putInt(runsScored);
+        record.putInt(wicketsTaken);
+        append(RECORD_PERFORMANCE);
+    }
+
+    // At most FIGURES_PER_RECORD rows, from index from up to to
+    public synchronized void figuresAdded(int matchIndex, int[] playerIds, int[] runs, int[] wickets, int from,
+            int to) {
+        if (to - from > FIGURES_PER_RECORD) {
+            throw new IllegalArgumentException((to - from) + " rows of figures do not fit in one journal record");
+        }
+        record.clear();
+        record.putInt(matchIndex);
+        record.putInt(to - from);
+        for (int i = from; i < to; i++) {
+            record.putInt(playerIds[i]);
+            record.putInt(runs[i]);
+            record.putInt(wickets[i]);
+        }
+        append(ADD_FIGURES);
+    }
+
+    public synchronized void trainingSessionAttended(int playerId) {
+        record.clear();
+        record.putInt(playerId);
+        append(TRAINING_SESSION);
+    }
+
+    public synchronized void trainingSessionRecorded(int playerId, long time, int minutes, int battingMinutes,
+            int bowlingMinutes) {
+        record.clear();
+        record.putInt(playerId);
+        record.putLong(time);
+        record.putInt(minutes);
+        record.putInt(battingMinutes);
+        record.putInt(bowlingMinutes);
+        append(TRAINING_LOG);
+    }
+
+    public synchronized void performanceReverted(int matchIndex, int playerId, int runsScored, int wicketsTaken,
+            int previousRuns, int previousWickets, boolean hadRow) {
+        record.clear();
+        record.putInt(matchIndex);
+        record.putInt(playerId);
+        record.putInt(runsScored);
+        record.putInt(wicketsTaken);
+        record.putInt(previousRuns);
+        record.putInt(previousWickets);
+        record.put((byte) (hadRow ? 1 : 0));
+        append(REVERT_PERFORMANCE);
+    }
+
+    public synchronized void trainingSessionRemoved(int playerId) {
+        record.clear();
+        record.putInt(playerId);
+        append(REMOVE_TRAINING_SESSION);
+    }
+
+    private void append(byte type) {
+        record.flip();
+        ClubMetrics.JOURNAL_RECORDS.increment();
+        ClubMetrics.JOURNAL_BYTES.add(record.remaining());
+        try {
+            journal.append(type, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (++recordsSinceSnapshot >= SNAPSHOT_INTERVAL && pendingSnapshot == null) {
+            pendingSnapshot = SNAPSHOTS.submit(this::writeDueSnapshot);
+        }
+    }
+
+    // Runs on the snapshot thread. Changes to the club wait for the store lock while it writes.
+    private void writeDueSnapshot() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write club snapshot: " + e.getMessage());
+            synchronized (this) {
+                recordsSinceSnapshot = 0; // Try again after another interval rather than on every record
+            }
+        } finally {
+            synchronized (this) {
+                pendingSnapshot = null;
+            }
+        }
+    }
+
+    private void apply(Club target, byte type, ByteBuffer payload) {
+        switch (type) {
+            case ADD_PLAYER:
+                int playerId = payload.getInt();
+                Player player = playerId < target.getRegisteredPlayerCount() ? target.getPlayerById(playerId)
+                        : new Player(getString(payload), payload.getInt(), getString(payload));
+                target.addPlayer(player);
+                if (player.getId() != playerId) {
+                    throw new IllegalStateException("Journal does not match snapshot: expected player id "
+                            + playerId + " but got " + player.getId());
+                }
+                break;
+            case REMOVE_PLAYER:
+                target.removePlayer(target.getPlayerById(payload.getInt()));
+                break;
+            case ADD_COACH:
+                target.addCoach(new Coach(getString(payload), payload.getInt(), payload.getInt()));
+                break;
+            case REMOVE_COACH:
+                target.removeCoach();
+                break;
+            case SCHEDULE_MATCH:
+                target.scheduleMatch(getString(payload));
+                break;
+            case SCHEDULE_FIXTURE:
+                target.scheduleMatch(getString(payload), getDate(payload), getNullableString(payload));
+                break;
+            case MATCH_STATUS:
+                target.setMatchStatus(target.getMatch(payload.getInt()), MatchStatus.values()[payload.get()]);
+                break;
+            case RECORD_PERFORMANCE:
+                Match match = target.getMatch(payload.getInt());
+                target.recordMatchPerformance(match, target.getPlayerById(payload.getInt()), payload.getInt(),
+                        payload.getInt());
+                break;
+            case TRAINING_SESSION:
+                target.attendTrainingSession(target.getPlayerById(payload.getInt()));
+                break;
+            case ADD_FIGURES:
+                Match figuresMatch = target.getMatch(payload.getInt());
+                int count = payload.getInt();
+                int[] playerIds = new int[count];
+                int[] runs = new int[count];
+                int[] wickets = new int[count];
+                for (int i = 0; i < count; i++) {
+                    playerIds[i] = payload.getInt();
+                    runs[i] = payload.getInt();
+                    wickets[i] = payload.getInt();
+                }
+                target.addMatchFigures(figuresMatch, playerIds, runs, wickets, count);
+                break;
+            case TRAINING_LOG:
+                target.recordTrainingSession(target.getPlayerById(payload.getInt()), payload.getLong(),
+                        payload.getInt(), payload.getInt(), payload.getInt());
+                break;
+            case UNSCHEDULE_MATCH:
+                target.unscheduleMatch(target.getMatch(payload.getInt()));
+                break;
+            case REVERT_PERFORMANCE:
+                target.revertMatchPerformance(target.getMatch(payload.getInt()),
+                        target.getPlayerById(payload.getInt()), payload.getInt(), payload.getInt(), payload.getInt(),
+                        payload.getInt(), payload.get() != 0);
+                break;
+            case REMOVE_TRAINING_SESSION:
+                target.removeLastTrainingSession(target.getPlayerById(payload.getInt()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    // Writes the whole club to a new snapshot and starts an empty journal after it.
+    // Every registered player is written in id order, so ids come back the same when the
+    // players are registered again on load.
+    public synchronized void writeSnapshot() throws IOException {
+        long start = ClubMetrics.SNAPSHOT.start();
+        try {
+            writeSnapshotFile();
+        } finally {
+            ClubMetrics.SNAPSHOT.stop(start);
+        }
+    }
+
+    private void writeSnapshotFile() throws IOException {
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(generation + 1);
+            writeString(out, club.getName());
+            Coach coach = club.getCoach();
+            out.writeBoolean(coach != null);
+            if (coach != null) {
+                writeString(out, coach.getName());
+                out.writeInt(coach.getAge());
+                out.writeInt(coach.getExperienceYears());
+            }
+            out.writeInt(club.getRegisteredPlayerCount());
+            for (int id = 0; id < club.getRegisteredPlayerCount(); id++) {
+                Player player = club.getPlayerById(id);
+                writeString(out, player.getName());
+                out.writeInt(player.getAge());
+                writeString(out, player.getRole());
+                out.writeInt(player.getMatchesPlayed());
+                out.writeInt(player.getRunsScored());
+                out.writeInt(player.getWicketsTaken());
+                out.writeInt(player.getTrainingSessions());
+            }
+            java.util.List<Player> squad = club.getPlayers();
+            out.writeInt(squad.size());
+            for (Player player : squad) {
+                out.writeInt(player.getId());
+            }
+            java.util.List<Match> matches = club.getMatches();
+            out.writeInt(matches.size());
+            for (Match match : matches) {
+                writeString(out, match.getOpponent());
+                out.writeLong(match.getDate() == null ? Long.MIN_VALUE : match.getDate().toEpochDay());
+                out.writeBoolean(match.getVenue() != null);
+                if (match.getVenue() != null) {
+                    writeString(out, match.getVenue());
+                }
+                out.writeByte(match.getStatus().ordinal());
+                out.writeInt(match.getPerformanceCount());
+                for (int row = 0; row < match.getPerformanceCount(); row++) {
+                    out.writeInt(match.getPlayerId(row));
+                    out.writeInt(match.getRuns(row));
+                    out.writeInt(match.getWickets(row));
+                }
+            }
+            // Training logs come last so snapshots written before they existed still load
+            for (int id = 0; id < club.getRegisteredPlayerCount(); id++) {
+                TrainingLog log = club.getPlayerById(id).getTrainingLog();
+                long[] times = log.getTimes();
+                if (times.length == 0) {
+                    continue;
+                }
+                out.writeInt(id);
+                out.writeInt(times.length);
+                for (int i = 0; i < times.length; i++) {
+                    out.writeLong(times[i]);
+                    out.writeInt(log.getMinutes(i));
+                    out.writeInt(log.getBattingMinutes(i));
+                    out.writeInt(log.getBowlingMinutes(i));
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+        journal.reset(generation);
+        recordsSinceSnapshot = 0;
+    }
+
+    private Club readSnapshot() throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int magic = in.getInt();
+        if (magic != SNAPSHOT_MAGIC && magic != UNDATED_SNAPSHOT_MAGIC) {
+            throw new IOException("Not a club snapshot: " + snapshotFile);
+        }
+        generation = in.getLong();
+        Club loaded = new Club(getString(in), null);
+        if (in.get() != 0) {
+            loaded.addCoach(new Coach(getString(in), in.getInt(), in.getInt()));
+        }
+        int playerCount = in.getInt();
+        for (int i = 0; i < playerCount; i++) {
+            loaded.registerPlayer(new Player(getString(in), in.getInt(), getString(in), in.getInt(), in.getInt(),
+                    in.getInt(), in.getInt()));
+        }
+        int squadSize = in.getInt();
+        for (int i = 0; i < squadSize; i++) {
+            loaded.addPlayer(loaded.getPlayerById(in.getInt()));
+        }
+        int matchCount = in.getInt();
+        for (int i = 0; i < matchCount; i++) {
+            Match match;
+            if (magic == SNAPSHOT_MAGIC) {
+                String opponent = getString(in);
+                LocalDate date = getDate(in);
+                match = loaded.scheduleMatch(opponent, date, in.get() != 0 ? getString(in) : null);
+                loaded.setMatchStatus(match, MatchStatus.values()[in.get()]);
+            } else {
+                match = loaded.scheduleMatch(getString(in));
+            }
+            int performanceCount = in.getInt();
+            for (int j = 0; j < performanceCount; j++) {
+                match.restorePerformance(in.getInt(), in.getInt(), in.getInt());
+            }
+        }
+        while (in.hasRemaining()) {
+            Player player = loaded.getPlayerById(in.getInt());
+            int sessionCount = in.getInt();
+            for (int i = 0; i < sessionCount; i++) {
+                player.restoreTrainingSession(in.getLong(), in.getInt(), in.getInt(), in.getInt());
+            }
+        }
+        return loaded;
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.putInt(bytes.length);
+        record.put(bytes);
+    }
+
+    private void putNullableString(String value) {
+        if (value == null) {
+            record.putInt(-1);
+        } else {
+            putString(value);
+        }
+    }
+
+    private static String getNullableString(ByteBuffer payload) {
+        if (payload.getInt(payload.position()) < 0) {
+            payload.getInt();
+            return null;
+        }
+        return getString(payload);
+    }
+
+    // Dates are stored as epoch days, with Long.MIN_VALUE for none
+    private static LocalDate getDate(ByteBuffer payload) {
+        long day = payload.getLong();
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Waits for a snapshot that is already due before closing the journal
+    @Override
+    public void close() throws IOException {
+        Future<?> pending;
+        synchronized (this) {
+            pending = pendingSnapshot;
+        }
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // writeDueSnapshot reports its own failures
+            }
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+}
+
+// A squad player together with the league club they play for
+class LeaguePlayer {
+    private final Club club;
+    private final Player player;
+
+    public LeaguePlayer(Club club, Player player) {
+        this.club = club;
+        this.player = player;
+    }
+
+    public Club getClub() {
+        return club;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    @Override
+    public String toString() {
+        return player.getName() + " (" + club.getName() + ")";
+    }
+}
+
+// A match between two league clubs. Each club keeps its side in a Match of its own, so its
+// statistics and saved data work as they do for any other match; the fixture ties the two
+// sides together and sends each performance to the side of the player's club.
+class Fixture {
+    private final Club home;
+    private final Club away;
+    private final Match homeMatch;
+    private final Match awayMatch;
+
+    Fixture(Club home, Club away) {
+        this(home, away, home.scheduleMatch(away.getName()), away.scheduleMatch(home.getName()));
+    }
+
+    // Ties together two sides already scheduled, e.g. when a saved league is opened
+    Fixture(Club home, Club away, Match homeMatch, Match awayMatch) {
+        this.home = home;
+        this.away = away;
+        this.homeMatch = homeMatch;
+        this.awayMatch = awayMatch;
+    }
+
+    // The player must be registered with one of the two clubs
+    public void recordPerformance(Player player, int runsScored, int wicketsTaken) {
+        if (home.isRegistered(player)) {
+            home.recordMatchPerformance(homeMatch, player, runsScored, wicketsTaken);
+        } else if (away.isRegistered(player)) {
+            away.recordMatchPerformance(awayMatch, player, runsScored, wicketsTaken);
+        } else {
+            throw new IllegalArgumentException(player.getName() + " does not play for " + home.getName()
+                    + " or " + away.getName());
+        }
+    }
+
+    public Club getHome() {
+        return home;
+    }
+
+    public Club getAway() {
+        return away;
+    }
+
+    public Match getHomeMatch() {
+        return homeMatch;
+    }
+
+    public Match getAwayMatch() {
+        return awayMatch;
+    }
+
+    @Override
+    public String toString() {
+        return home.getName() + " " + homeMatch.getTotalRuns() + " v " + awayMatch.getTotalRuns() + " "
+                + away.getName();
+    }
+}
+
+// Many clubs split into shards by a hash of the club name. Each shard has its own lock and,
+// for a saved league, its own directory of club stores, so clubs in different shards never
+// contend and shards load in parallel. League-wide queries run once per shard in parallel
+// and merge the per-shard results. A saved league also keeps fixtures.journal, which pairs
+// up the two sides of each fixture by club name and match index.
+class League implements Closeable {
+    private static final byte FIXTURE = 1;
+
+    private static final class Shard {
+        final File directory; // Null when the league is not saved
+        final Map<String, Club> clubs = new LinkedHashMap<>(); // Guarded by the shard
+        final java.util.List<ClubStore> stores = new ArrayList<>(); // Guarded by the shard
+        volatile java.util.List<Club> clubsView; // Read-only copy of the clubs, rebuilt after one is added
+
+        Shard(File directory) {
+            this.directory = directory;
+        }
+    }
+
+    private final Shard[] shards;
+    private final java.util.List<Fixture> fixtures = new ArrayList<>(); // Guarded by itself
+    private ClubJournal fixtureJournal; // Null when the league is not saved; guarded by fixtures
+
+    // A league kept only in memory
+    public League(int shardCount) {
+        this(null, shardCount);
+    }
+
+    private League(File directory, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A league needs at least one shard");
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(directory == null ? null : new File(directory, String.format("shard-%03d", i)));
+        }
+    }
+
+    // Opens a saved league, loading every club found under the directory. A club stays in the
+    // directory it was created in, so the league can be reopened with a different shard count.
+    public static League open(File directory, int shardCount) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create league directory " + directory);
+        }
+        League league = new League(directory, shardCount);
+        File[] shardDirectories = directory.listFiles(
+                file -> file.isDirectory() && file.getName().startsWith("shard-"));
+        if (shardDirectories == null) {
+            throw new IOException("Cannot list league directory " + directory);
+        }
+        try {
+            Arrays.stream(shardDirectories).parallel().forEach(shardDirectory -> {
+                File[] clubs = shardDirectory.listFiles(File::isDirectory);
+                for (File clubDirectory : clubs == null ? new File[0] : clubs) {
+                    String name = URLDecoder.decode(clubDirectory.getName(), StandardCharsets.UTF_8);
+                    try {
+                        league.load(name, clubDirectory);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            league.fixtureJournal = new ClubJournal(new File(directory, "fixtures.journal"));
+            league.fixtureJournal.replay((type, payload) -> league.restoreFixture(type, payload));
+        } catch (UncheckedIOException e) {
+            league.close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            league.close();
+            throw e;
+        }
+        return league;
+    }
+
+    private void restoreFixture(byte type, ByteBuffer payload) {
+        if (type != FIXTURE) {
+            throw new IllegalStateException("Unknown fixture journal record type " + type);
+        }
+        Club home = requireClub(getString(payload));
+        Club away = requireClub(getString(payload));
+        Match homeMatch = restoreSide(home, away.getName(), payload.getInt());
+        Match awayMatch = restoreSide(away, home.getName(), payload.getInt());
+        fixtures.add(new Fixture(home, away, homeMatch, awayMatch));
+    }
+
+    // A fixture is saved before either club schedules its side, so a side that is missing was
+    // lost to a crash part way through scheduleFixture and is scheduled now
+    private static Match restoreSide(Club club, String opponent, int index) {
+        int matchCount = club.getMatchCount();
+        if (index == matchCount) {
+            return club.scheduleMatch(opponent);
+        }
+        if (index > matchCount || !club.getMatch(index).getOpponent().equals(opponent)) {
+            throw new IllegalStateException("Fixture journal does not match " + club.getName() + ": match "
+                    + (index + 1) + " should be against " + opponent);
+        }
+        return club.getMatch(index);
+    }
+
+    private Club load(String name, File clubDirectory) throws IOException {
+        ClubStore store = new ClubStore(clubDirectory);
+        Club club = store.load(name);
+        Shard shard = shardOf(name);
+        synchronized (shard) {
+            shard.clubs.put(name, club);
+            shard.stores.add(store);
+            shard.clubsView = null;
+        }
+        return club;
+    }
+
+    // Throws IllegalArgumentException if the league already has a club of that name
+    public Club addClub(String name) {
+        if (name.isBlank() || name.equals(".") || name.equals("..")) {
+            throw new IllegalArgumentException("Not a valid club name: " + name);
+        }
+        Shard shard = shardOf(name);
+        synchronized (shard) {
+            if (shard.clubs.containsKey(name)) {
+                throw new IllegalArgumentException("The league already has a club called " + name);
+            }
+            if (shard.directory == null) {
+                Club club = new Club(name, null);
+                shard.clubs.put(name, club);
+                shard.clubsView = null;
+                return club;
+            }
+            try {
+                return load(name, new File(shard.directory, URLEncoder.encode(name, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public Club getClub(String name) {
+        Shard shard = shardOf(name);
+        synchronized (shard) {
+            return shard.clubs.get(name);
+        }
+    }
+
+    public java.util.List<Club> getClubs() {
+        java.util.List<Club> clubs = new ArrayList<>();
+        for (Shard shard : shards) {
+            clubs.addAll(clubsOf(shard));
+        }
+        return clubs;
+    }
+
+    public int getClubCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += clubsOf(shard).size();
+        }
+        return count;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Fixture scheduleFixture(String homeClub, String awayClub) {
+        Club home = requireClub(homeClub);
+        Club away = requireClub(awayClub);
+        if (home == away) {
+            throw new IllegalArgumentException(homeClub + " cannot play itself");
+        }
+        synchronized (fixtures) {
+            if (fixtureJournal == null) {
+                Fixture fixture = new Fixture(home, away);
+                fixtures.add(fixture);
+                return fixture;
+            }
+            // The fixture is saved first, with the places its two matches are about to take, and
+            // neither club can schedule anything else in between. Opening the league again
+            // schedules whatever a crash left out; see restoreSide.
+            synchronized (home.getScheduleLock()) {
+                synchronized (away.getScheduleLock()) {
+                    byte[] homeName = home.getName().getBytes(StandardCharsets.UTF_8);
+                    byte[] awayName = away.getName().getBytes(StandardCharsets.UTF_8);
+                    ByteBuffer record = ByteBuffer.allocate(16 + homeName.length + awayName.length);
+                    record.putInt(homeName.length).put(homeName).putInt(awayName.length).put(awayName);
+                    record.putInt(home.getMatchCount()).putInt(away.getMatchCount());
+                    try {
+                        fixtureJournal.append(FIXTURE, record.flip());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    Fixture fixture = new Fixture(home, away);
+                    fixtures.add(fixture);
+                    return fixture;
+                }
+            }
+        }
+    }
+
+    public java.util.List<Fixture> getFixtures() {
+        synchronized (fixtures) {
+            return new ArrayList<>(fixtures);
+        }
+    }
+
+    public java.util.List<LeaguePlayer> topRunScorers(int n) {
+        return top(n, Comparator.comparingInt((LeaguePlayer entry) -> entry.getPlayer().getRunsScored()));
+    }
+
+    public java.util.List<LeaguePlayer> topWicketTakers(int n) {
+        return top(n, Comparator.comparingInt((LeaguePlayer entry) -> entry.getPlayer().getWicketsTaken()));
+    }
+
+    // Each shard keeps its best n squad players in a bounded heap, then the shard heaps are merged
+    private java.util.List<LeaguePlayer> top(int n, Comparator<LeaguePlayer> order) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        java.util.List<PriorityQueue<LeaguePlayer>> perShard = Arrays.stream(shards).parallel().map(shard -> {
+            PriorityQueue<LeaguePlayer> best = new PriorityQueue<>(n + 1, order);
+            for (Club club : clubsOf(shard)) {
+                for (Player player : club.getPlayers()) {
+                    offer(best, new LeaguePlayer(club, player), n, order);
+                }
+            }
+            return best;
+        }).collect(Collectors.toList());
+
+        PriorityQueue<LeaguePlayer> best = new PriorityQueue<>(n + 1, order);
+        for (PriorityQueue<LeaguePlayer> shardBest : perShard) {
+            for (LeaguePlayer entry : shardBest) {
+                offer(best, entry, n, order);
+            }
+        }
+        java.util.List<LeaguePlayer> result = new ArrayList<>(best);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    private static void offer(PriorityQueue<LeaguePlayer> best, LeaguePlayer entry, int n,
+            Comparator<LeaguePlayer> order) {
+        if (best.size() < n) {
+            best.add(entry);
+        } else if (order.compare(entry, best.peek()) > 0) {
+            best.poll();
+            best.add(entry);
+        }
+    }
+
+    private Club requireClub(String name) {
+        Club club = getClub(name);
+        if (club == null) {
+            throw new IllegalArgumentException("No club called " + name + " in the league");
+        }
+        return club;
+    }
+
+    private Shard shardOf(String clubName) {
+        return shards[Math.floorMod(clubName.hashCode(), shards.length)];
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static java.util.List<Club> clubsOf(Shard shard) {
+        java.util.List<Club> view = shard.clubsView;
+        if (view == null) {
+            synchronized (shard) {
+                view = Collections.unmodifiableList(new ArrayList<>(shard.clubs.values()));
+                shard.clubsView = view;
+            }
+        }
+        return view;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        synchronized (fixtures) {
+            if (fixtureJournal != null) {
+                try {
+                    fixtureJournal.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (ClubStore store : shard.stores) {
+                    try {
+                        store.close();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
+
+// Bulk import and export of a club's players, fixtures and performances, as CSV or as a
+// compact binary file. CSV is read straight from a FileChannel into a reusable byte buffer and
+// numbers are parsed from the bytes, so the only Strings made are player names, roles and one
+// opponent per match. Performances are added to the club a match at a time through
+// addMatchFigures.
+//
+//   players.csv       id,name,age,role,in_squad
+//   matches.csv       match,opponent,date,venue,status
+//   performances.csv  match,opponent,player_id,runs,wickets
+//
+// The ids in performances.csv are the ids in players.csv. Dates in matches.csv are ISO days
+// and may be empty, as may venues; the status is a MatchStatus name. matches.csv is optional:
+// rows of a match number it does not list belong to one new match without a date. Player
+// totals are rebuilt from the performances; training sessions are not carried over.
+class ClubTransfer {
+    private static final int BINARY_MAGIC = 0x434C4258; // "CLBX"
+    private static final int BINARY_VERSION = 2; // Version 1 had no match dates, venues or status
+
+    public static final String PLAYERS_FILE = "players.csv";
+    public static final String MATCHES_FILE = "matches.csv";
+    public static final String PERFORMANCES_FILE = "performances.csv";
+    public static final String BINARY_FILE = "club.bin";
+
+    public static int exportPlayersCsv(Club club, Path file) throws IOException {
+        int count = club.getRegisteredPlayerCount();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id,name,age,role,in_squad\n");
+            for (int id = 0; id < count; id++) {
+                Player player = club.getPlayerById(id);
+                out.write(Integer.toString(id));
+                out.write(',');
+                writeCsvString(out, player.getName());
+                out.write(',');
+                out.write(Integer.toString(player.getAge()));
+                out.write(',');
+                writeCsvString(out, player.getRole());
+                out.write(club.isInSquad(player) ? ",1\n" : ",0\n");
+            }
+        }
+        return count;
+    }
+
+    public static int exportMatchesCsv(Club club, Path file) throws IOException {
+        java.util.List<Match> matches = club.getMatches();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("match,opponent,date,venue,status\n");
+            for (Match match : matches) {
+                out.write(Integer.toString(match.getIndex()));
+                out.write(',');
+                writeCsvString(out, match.getOpponent());
+                out.write(',');
+                if (match.getDate() != null) {
+                    out.write(match.getDate().toString());
+                }
+                out.write(',');
+                if (match.getVenue() != null) {
+                    writeCsvString(out, match.getVenue());
+                }
+                out.write(',');
+                out.write(match.getStatus().name());
+                out.write('\n');
+            }
+        }
+        return matches.size();
+    }
+
+    public static int exportPerformancesCsv(Club club, Path file) throws IOException {
+        int rows = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("match,opponent,player_id,runs,wickets\n");
+            for (Match match : club.getMatches()) {
+                StringWriter prefix = new StringWriter();
+                prefix.write(Integer.toString(match.getIndex()));
+                prefix.write(',');
+                writeCsvString(prefix, match.getOpponent());
+                prefix.write(',');
+                String matchPrefix = prefix.toString();
+                int count = match.getPerformanceCount();
+                for (int row = 0; row < count; row++) {
+                    out.write(matchPrefix);
+                    out.write(Integer.toString(match.getPlayerId(row)));
+                    out.write(',');
+                    out.write(Integer.toString(match.getRuns(row)));
+                    out.write(',');
+                    out.write(Integer.toString(match.getWickets(row)));
+                    out.write('\n');
+                }
+                rows += count;
+            }
+        }
+        return rows;
+    }
+
+    // Adds every player in the file to the club. Returns the club id of each file id, with -1
+    // for ids the file does not use, ready to pass to importPerformancesCsv.
+    public static int[] importPlayersCsv(Club club, Path file) throws IOException {
+        int[] clubIds = new int[0];
+        try (CsvReader in = new CsvReader(file)) {
+            while (in.next()) {
+                if (in.isHeader()) {
+                    continue;
+                }
+                in.requireFields(5);
+                int fileId = in.getInt(0);
+                if (fileId < 0) {
+                    throw in.error("Negative player id");
+                }
+                Player player = new Player(in.getString(1), in.getInt(2), in.getString(3));
+                addImportedPlayer(club, player, in.getInt(4) != 0);
+                if (fileId >= clubIds.length) {
+                    int length = clubIds.length;
+                    clubIds = Arrays.copyOf(clubIds, Math.max(fileId + 1, length * 2));
+                    Arrays.fill(clubIds, length, clubIds.length, -1);
+                }
+                clubIds[fileId] = player.getId();
+            }
+        }
+        return clubIds;
+    }
+
+    // Schedules every match in the file. Returns the new match for each match number, ready to
+    // pass to importPerformancesCsv.
+    public static Map<Integer, Match> importMatchesCsv(Club club, Path file) throws IOException {
+        Map<Integer, Match> matches = new HashMap<>();
+        try (CsvReader in = new CsvReader(file)) {
+            while (in.next()) {
+                if (in.isHeader()) {
+                    continue;
+                }
+                in.requireFields(5);
+                int matchNumber = in.getInt(0);
+                if (matches.containsKey(matchNumber)) {
+                    throw in.error("Match " + matchNumber + " is listed twice");
+                }
+                String opponent = in.getString(1);
+                String date = in.getString(2).trim();
+                String venue = in.getString(3);
+                MatchStatus status;
+                LocalDate day;
+                try {
+                    status = MatchStatus.valueOf(in.getString(4).trim().toUpperCase(Locale.ROOT));
+                    day = date.isEmpty() ? null : LocalDate.parse(date);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    throw in.error("Bad date or status: " + e.getMessage());
+                }
+                Match match = club.scheduleMatch(opponent, day, venue.isEmpty() ? null : venue);
+                if (status != MatchStatus.SCHEDULED) {
+                    club.setMatchStatus(match, status);
+                }
+                matches.put(matchNumber, match);
+            }
+        }
+        return matches;
+    }
+
+    public static int importPerformancesCsv(Club club, Path file, int[] clubIds) throws IOException {
+        return importPerformancesCsv(club, file, clubIds, null);
+    }
+
+    // clubIds maps the file's player ids to club ids; pass null when they are club ids already.
+    // matches maps match numbers to matches from importMatchesCsv, or is null. Returns the
+    // number of rows imported.
+    public static int importPerformancesCsv(Club club, Path file, int[] clubIds, Map<Integer, Match> matches)
+            throws IOException {
+        Batch batch = new Batch();
+        int rows = 0;
+        try (CsvReader in = new CsvReader(file)) {
+            while (in.next()) {
+                if (in.isHeader()) {
+                    continue;
+                }
+                in.requireFields(5);
+                int matchNumber = in.getInt(0);
+                if (batch.match == null || matchNumber != batch.matchNumber) {
+                    batch.flush(club);
+                    Match listed = matches == null ? null : matches.get(matchNumber);
+                    batch.match = listed != null ? listed : club.scheduleMatch(in.getString(1));
+                    batch.matchNumber = matchNumber;
+                }
+                int playerId = in.getInt(2);
+                if (clubIds != null) {
+                    playerId = playerId >= 0 && playerId < clubIds.length ? clubIds[playerId] : -1;
+                }
+                if (playerId < 0 || playerId >= club.getRegisteredPlayerCount()) {
+                    throw in.error("Unknown player id " + in.getInt(2));
+                }
+                batch.add(playerId, in.getInt(3), in.getInt(4));
+                rows++;
+            }
+        }
+        batch.flush(club);
+        return rows;
+    }
+
+    // Player names and opponents are stored once each and numbers as variable-length ints
+    public static void exportBinary(Club club, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            writeVarInt(out, BINARY_VERSION);
+            int playerCount = club.getRegisteredPlayerCount();
+            writeVarInt(out, playerCount);
+            for (int id = 0; id < playerCount; id++) {
+                Player player = club.getPlayerById(id);
+                writeBinaryString(out, player.getName());
+                writeVarInt(out, player.getAge());
+                writeBinaryString(out, player.getRole());
+                out.writeBoolean(club.isInSquad(player));
+            }
+            java.util.List<Match> matches = club.getMatches();
+            Map<String, Integer> opponents = new LinkedHashMap<>();
+            for (Match match : matches) {
+                opponents.putIfAbsent(match.getOpponent(), opponents.size());
+            }
+            writeVarInt(out, opponents.size());
+            for (String opponent : opponents.keySet()) {
+                writeBinaryString(out, opponent);
+            }
+            writeVarInt(out, matches.size());
+            for (Match match : matches) {
+                writeVarInt(out, opponents.get(match.getOpponent()));
+                out.writeBoolean(match.getDate() != null);
+                if (match.getDate() != null) {
+                    writeVarInt(out, zigZag(Math.toIntExact(match.getDate().toEpochDay())));
+                }
+                out.writeBoolean(match.getVenue() != null);
+                if (match.getVenue() != null) {
+                    writeBinaryString(out, match.getVenue());
+                }
+                out.writeByte(match.getStatus().ordinal());
+                int count = match.getPerformanceCount();
+                writeVarInt(out, count);
+                for (int row = 0; row < count; row++) {
+                    writeVarInt(out, match.getPlayerId(row));
+                    writeVarInt(out, zigZag(match.getRuns(row)));
+                    writeVarInt(out, zigZag(match.getWickets(row)));
+                }
+            }
+        }
+    }
+
+    public static void importBinary(Club club, Path file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int version = in.getInt() == BINARY_MAGIC ? readVarInt(in) : -1;
+        if (version != 1 && version != BINARY_VERSION) {
+            throw new IOException("Not a club export: " + file);
+        }
+        int playerCount = readVarInt(in);
+        int[] clubIds = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player(readBinaryString(in), readVarInt(in), readBinaryString(in));
+            addImportedPlayer(club, player, in.get() != 0);
+            clubIds[i] = player.getId();
+        }
+        String[] opponents = new String[readVarInt(in)];
+        for (int i = 0; i < opponents.length; i++) {
+            opponents[i] = readBinaryString(in);
+        }
+        Batch batch = new Batch();
+        int matchCount = readVarInt(in);
+        for (int i = 0; i < matchCount; i++) {
+            String opponent = opponents[readVarInt(in)];
+            if (version == 1) {
+                batch.match = club.scheduleMatch(opponent);
+            } else {
+                LocalDate date = in.get() != 0 ? LocalDate.ofEpochDay(unZigZag(readVarInt(in))) : null;
+                batch.match = club.scheduleMatch(opponent, date, in.get() != 0 ? readBinaryString(in) : null);
+                MatchStatus status = MatchStatus.values()[in.get()];
+                if (status != MatchStatus.SCHEDULED) {
+                    club.setMatchStatus(batch.match, status);
+                }
+            }
+            int count = readVarInt(in);
+            for (int row = 0; row < count; row++) {
+                batch.add(clubIds[readVarInt(in)], unZigZag(readVarInt(in)), unZigZag(readVarInt(in)));
+            }
+            batch.flush(club);
+        }
+    }
+
+    // Players outside the squad are added and removed again, so a saved club journals them
+    private static void addImportedPlayer(Club club, Player player, boolean inSquad) {
+        club.addPlayer(player);
+        if (!inSquad) {
+            club.removePlayer(player);
+        }
+    }
+
+    // The figures for the match being imported, added to the club in one call
+    private static final class Batch {
+        Match match;
+        int matchNumber;
+        int[] playerIds = new int[16];
+        int[] runs = new int[16];
+        int[] wickets = new int[16];
+        int count;
+
+        void add(int playerId, int playerRuns, int playerWickets) {
+            if (count == playerIds.length) {
+                playerIds = Arrays.copyOf(playerIds, count * 2);
+                runs = Arrays.copyOf(runs, count * 2);
+                wickets = Arrays.copyOf(wickets, count * 2);
+            }
+            playerIds[count] = playerId;
+            runs[count] = playerRuns;
+            wickets[count] = playerWickets;
+            count++;
+        }
+
+        void flush(Club club) {
+            if (count > 0) {
+                club.addMatchFigures(match, playerIds, runs, wickets, count);
+                count = 0;
+            }
+        }
+    }
+
+    // Reads one record at a time into a reusable buffer, noting where each field starts and ends.
+    // Fields may be quoted, with "" for a quote inside, and records may end in \n or \r\n.
+    private static final class CsvReader implements Closeable {
+        private final FileChannel channel;
+        private final Path file;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private int position;
+        private boolean endOfFile;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int fieldCount;
+        private long line;
+
+        CsvReader(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        // Moves to the next non-blank record
+        boolean next() throws IOException {
+            while (true) {
+                int end = parse(buffer.array(), position, buffer.limit(), endOfFile);
+                if (end >= 0) {
+                    position = end;
+                    line++;
+                    if (fieldCount > 1 || ends[0] > starts[0]) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (endOfFile) {
+                    return false;
+                }
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            byte[] bytes = buffer.array();
+            int remaining = buffer.limit() - position;
+            if (position == 0 && remaining == bytes.length) {
+                buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2));
+            } else {
+                System.arraycopy(bytes, position, bytes, 0, remaining);
+            }
+            position = 0;
+            buffer.limit(buffer.capacity());
+            buffer.position(remaining);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    endOfFile = true;
+                    break;
+                }
+            }
+            buffer.limit(buffer.position());
+        }
+
+        // Returns the offset just past the record, or -1 if the record runs past the data read so far
+        private int parse(byte[] bytes, int from, int limit, boolean atEnd) {
+            if (from >= limit) {
+                return -1;
+            }
+            fieldCount = 0;
+            int start = from;
+            boolean quoted = false;
+            for (int i = from; i < limit; i++) {
+                byte b = bytes[i];
+                if (quoted) {
+                    if (b == '"') {
+                        if (i + 1 == limit && !atEnd) {
+                            return -1;
+                        }
+                        if (i + 1 < limit && bytes[i + 1] == '"') {
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    }
+                } else if (b == '"') {
+                    quoted = true;
+                } else if (b == ',') {
+                    addField(start, i);
+                    start = i + 1;
+                } else if (b == '\n') {
+                    addField(start, i > start && bytes[i - 1] == '\r' ? i - 1 : i);
+                    return i + 1;
+                }
+            }
+            if (!atEnd) {
+                return -1;
+            }
+            addField(start, limit > start && bytes[limit - 1] == '\r' ? limit - 1 : limit);
+            return limit;
+        }
+
+        private void addField(int start, int end) {
+            if (fieldCount == starts.length) {
+                starts = Arrays.copyOf(starts, fieldCount * 2);
+                ends = Arrays.copyOf(ends, fieldCount * 2);
+            }
+            starts[fieldCount] = start;
+            ends[fieldCount] = end;
+            fieldCount++;
+        }
+
+        // A first line that does not start with a number is taken as the column names
+        boolean isHeader() {
+            if (line != 1) {
+                return false;
+            }
+            byte[] bytes = buffer.array();
+            int i = starts[0];
+            while (i < ends[0] && (bytes[i] == ' ' || bytes[i] == '"')) {
+                i++;
+            }
+            return i < ends[0] && bytes[i] != '-' && (bytes[i] < '0' || bytes[i] > '9');
+        }
+
+        void requireFields(int count) throws IOException {
+            if (fieldCount < count) {
+                throw error("Expected " + count + " fields but found " + fieldCount);
+            }
+        }
+
+        int getInt(int field) throws IOException {
+            byte[] bytes = buffer.array();
+            int i = starts[field];
+            int end = ends[field];
+            while (i < end && (bytes[i] == ' ' || bytes[i] == '"')) {
+                i++;
+            }
+            while (end > i && (bytes[end - 1] == ' ' || bytes[end - 1] == '"')) {
+                end--;
+            }
+            boolean negative = i < end && bytes[i] == '-';
+            if (negative) {
+                i++;
+            }
+            if (i == end) {
+                throw error("Missing number in field " + (field + 1));
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                    throw error("Not a number in field " + (field + 1));
+                }
+                value = value * 10 + digit;
+            }
+            value = negative ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw error("Number out of range in field " + (field + 1));
+            }
+            return (int) value;
+        }
+
+        String getString(int field) {
+            byte[] bytes = buffer.array();
+            int start = starts[field];
+            int end = ends[field];
+            if (end - start >= 2 && bytes[start] == '"' && bytes[end - 1] == '"') {
+                String value = new String(bytes, start + 1, end - start - 2, StandardCharsets.UTF_8);
+                return value.indexOf('"') < 0 ? value : value.replace("\"\"", "\"");
+            }
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        IOException error(String message) {
+            return new IOException(file + " line " + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static void writeCsvString(Writer out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeBinaryString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readBinaryString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Keeps small negative numbers small when written as a varint
+    private static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    private static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
+
+enum ExtraType {
+    NONE, WIDE, NO_BALL, BYE, LEG_BYE;
+
+    // Wides and no-balls have to be bowled again
+    public boolean isLegalDelivery() {
+        return this != WIDE && this != NO_BALL;
+    }
+
+    // Byes and leg byes are not charged to the bowler
+    public boolean chargedToBowler() {
+        return this != BYE && this != LEG_BYE;
+    }
+}
+
+enum WicketType {
+    NONE, BOWLED, CAUGHT, LBW, STUMPED, HIT_WICKET, RUN_OUT;
+
+    public boolean creditedToBowler() {
+        return this != NONE && this != RUN_OUT;
+    }
+}
+
+// Live figures for one innings, built up delivery by delivery. Batters and bowlers get a row
+// each, keyed by player id.
+class LiveScorecard {
+    private static final int BATTER_RUNS = 0;
+    private static final int BATTER_BALLS = 1;
+    private static final int BOWLER_BALLS = 0;
+    private static final int BOWLER_RUNS = 1;
+    private static final int BOWLER_WICKETS = 2;
+
+    private final PerformanceTable batting = new PerformanceTable(2);
+    private final PerformanceTable bowling = new PerformanceTable(3);
+    private int total;
+    private int wickets;
+    private int legalBalls;
+    private int extras;
+
+    synchronized void apply(int batterId, int bowlerId, int runs, int extraRuns, ExtraType extraType,
+            WicketType wicketType) {
+        total += runs + extraRuns;
+        extras += extraRuns;
+        int batter = batting.rowFor(batterId);
+        batting.add(batter, BATTER_RUNS, runs);
+        if (extraType != ExtraType.WIDE) {
+            batting.add(batter, BATTER_BALLS, 1);
+        }
+        int bowler = bowling.rowFor(bowlerId);
+        bowling.add(bowler, BOWLER_RUNS, runs + (extraType.chargedToBowler() ? extraRuns : 0));
+        if (extraType.isLegalDelivery()) {
+            bowling.add(bowler, BOWLER_BALLS, 1);
+            legalBalls++;
+        }
+        if (wicketType != WicketType.NONE) {
+            wickets++;
+            if (wicketType.creditedToBowler()) {
+                bowling.add(bowler, BOWLER_WICKETS, 1);
+            }
+        }
+    }
+
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    public synchronized int getWickets() {
+        return wickets;
+    }
+
+    public synchronized int getExtras() {
+        return extras;
+    }
+
+    public synchronized String getOvers() {
+        return legalBalls / 6 + "." + legalBalls % 6;
+    }
+
+    public synchronized int getBatterRuns(int playerId) {
+        int row = batting.rowOf(playerId);
+        return row < 0 ? 0 : batting.get(row, BATTER_RUNS);
+    }
+
+    public synchronized int getBallsFaced(int playerId) {
+        int row = batting.rowOf(playerId);
+        return row < 0 ? 0 : batting.get(row, BATTER_BALLS);
+    }
+
+    public synchronized int getRunsConceded(int playerId) {
+        int row = bowling.rowOf(playerId);
+        return row < 0 ? 0 : bowling.get(row, BOWLER_RUNS);
+    }
+
+    public synchronized int getBowlerWickets(int playerId) {
+        int row = bowling.rowOf(playerId);
+        return row < 0 ? 0 : bowling.get(row, BOWLER_WICKETS);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return total + "/" + wickets + " (" + getOvers() + " overs, extras " + extras + ")";
+    }
+}
+
+// Takes ball-by-ball deliveries for one match from a single scorer and applies them in
+// batches. Deliveries wait in a bounded ring of ints, so publishing allocates nothing; the
+// scorer blocks when the ring is full. Each batch updates the scorecard, then goes to the
+// club as one set of figures: one match lock and one journal record per batch.
+class DeliveryFeed implements Closeable {
+    private static final int FIELDS = 8; // over, ball, batter, bowler, runs, extras, extra type, wicket type
+    private static final int MAX_BATCH = 512;
+
+    private final Club club;
+    private final Match match;
+    private final LiveScorecard scorecard = new LiveScorecard();
+    private final int[] ring;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong(); // Deliveries written by the scorer
+    private final AtomicLong applied = new AtomicLong(); // Deliveries taken by the consumer
+    private final int[] batchIds = new int[MAX_BATCH * 2];
+    private final int[] batchRuns = new int[MAX_BATCH * 2];
+    private final int[] batchWickets = new int[MAX_BATCH * 2];
+    private final ExtraType[] extraTypes = ExtraType.values();
+    private final WicketType[] wicketTypes = WicketType.values();
+    private volatile boolean running;
+    private volatile RuntimeException failure; // What stopped the background consumer, if anything
+    private Thread consumer;
+
+    // The capacity is rounded up to a power of two
+    public DeliveryFeed(Club club, Match match, int capacity) {
+        this.club = club;
+        this.match = match;
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        ring = new int[size * FIELDS];
+        mask = size - 1;
+    }
+
+    public LiveScorecard getScorecard() {
+        return scorecard;
+    }
+
+    // Both players must be registered with the club. Throws IllegalStateException if the
+    // background consumer has stopped on a failure.
+    public void publish(int over, int ball, int batterId, int bowlerId, int runs, int extras, ExtraType extraType,
+            WicketType wicketType) {
+        checkPlayer(batterId);
+        checkPlayer(bowlerId);
+        checkFailure();
+        long sequence = published.get();
+        while (sequence - applied.get() > mask) {
+            checkFailure();
+            if (running) {
+                LockSupport.parkNanos(10_000);
+            } else {
+                drain();
+            }
+        }
+        int slot = (int) (sequence & mask) * FIELDS;
+        ring[slot] = over;
+        ring[slot + 1] = ball;
+        ring[slot + 2] = batterId;
+        ring[slot + 3] = bowlerId;
+        ring[slot + 4] = runs;
+        ring[slot + 5] = extras;
+        ring[slot + 6] = extraType.ordinal();
+        ring[slot + 7] = wicketType.ordinal();
+        published.lazySet(sequence + 1);
+    }
+
+    // Applies up to one batch of waiting deliveries and returns how many there were.
+    // Only one thread may drain a feed; start() hands that job to a background thread.
+    // The club gets the batch first, so if that fails the scorecard is left as it was and
+    // the batch stays waiting in the ring.
+    public int drain() {
+        long start = applied.get();
+        int count = (int) Math.min(published.get() - start, MAX_BATCH);
+        if (count == 0) {
+            return 0;
+        }
+        int figures = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) & mask) * FIELDS;
+            batchIds[figures] = ring[slot + 2];
+            batchRuns[figures] = ring[slot + 4];
+            batchWickets[figures++] = 0;
+            batchIds[figures] = ring[slot + 3];
+            batchRuns[figures] = 0;
+            batchWickets[figures++] = wicketTypes[ring[slot + 7]].creditedToBowler() ? 1 : 0;
+        }
+        club.addMatchFigures(match, batchIds, batchRuns, batchWickets, figures);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) & mask) * FIELDS;
+            scorecard.apply(ring[slot + 2], ring[slot + 3], ring[slot + 4], ring[slot + 5],
+                    extraTypes[ring[slot + 6]], wicketTypes[ring[slot + 7]]);
+        }
+        applied.lazySet(start + count);
+        return count;
+    }
+
+    public synchronized void start() {
+        if (consumer != null) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(() -> {
+            try {
+                while (running) {
+                    if (drain() == 0) {
+                        LockSupport.parkNanos(100_000);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // publish and close rethrow it, so a scorer waiting on a full ring does not hang
+                failure = e;
+                running = false;
+            }
+        }, "delivery-feed-" + match.getOpponent());
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // Stops the background consumer, if any, and applies everything still waiting. Throws
+    // IllegalStateException, leaving the waiting deliveries unapplied, if the consumer failed.
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (consumer != null) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer = null;
+        }
+        checkFailure();
+        while (drain() > 0) {
+            // keep going until the ring is empty
+        }
+    }
+
+    private void checkPlayer(int id) {
+        if (id < 0 || id >= club.getRegisteredPlayerCount()) {
+            throw new IllegalArgumentException("No player with id " + id);
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("The delivery feed stopped: " + cause.getMessage(), cause);
+        }
+    }
+}
+
+// Counters and latency histograms for club operations and GUI actions. Collection is off
+// until enable() is called, and while it is off start() is one volatile read and stop() one
+// compare, so instrumented code pays next to nothing. Once enabled, every counter and timer
+// is registered with the platform MBean server under "cricketclub:type=...".
+final class ClubMetrics {
+    // JMX views. The interfaces are public because the MBean server only accepts public ones.
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface TimerMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP90Micros();
+
+        double getP99Micros();
+
+        double getMaxMicros();
+    }
+
+    static final class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            if (enabled) {
+                count.increment();
+            }
+        }
+
+        public void add(long value) {
+            if (enabled) {
+                count.add(value);
+            }
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    // Times an operation: long start = timer.start(); ... timer.stop(start);
+    static final class Timer implements TimerMXBean {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (start != 0) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.getMean() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getPercentile(50) / 1000.0;
+        }
+
+        @Override
+        public double getP90Micros() {
+            return histogram.getPercentile(90) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getPercentile(99) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMax() / 1000.0;
+        }
+    }
+
+    private static volatile boolean enabled;
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private static ScheduledExecutorService dumper; // Guarded by ClubMetrics.class
+
+    public static final Timer ADD_PLAYER = timer("club.addPlayer");
+    public static final Timer REMOVE_PLAYER = timer("club.removePlayer");
+    public static final Timer RECORD_MATCH_PERFORMANCE = timer("club.recordMatchPerformance");
+    public static final Timer CALCULATE_RUNS = timer("club.calculateRunsAgainstOpponent");
+    public static final Counter JOURNAL_RECORDS = counter("store.journalRecords");
+    public static final Counter JOURNAL_BYTES = counter("store.journalBytes");
+    public static final Timer SNAPSHOT = timer("store.snapshot");
+
+    private ClubMetrics() {
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = counters.computeIfAbsent(name, k -> new Counter());
+        if (enabled) {
+            register("Counter", name, counter);
+        }
+        return counter;
+    }
+
+    public static Timer timer(String name) {
+        Timer timer = timers.computeIfAbsent(name, k -> new Timer());
+        if (enabled) {
+            register("Timer", name, timer);
+        }
+        return timer;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        enabled = true;
+        counters.forEach((name, counter) -> register("Counter", name, counter));
+        timers.forEach((name, timer) -> register("Timer", name, timer));
+    }
+
+    // Writes dump() to the stream every interval on a daemon thread
+    public static synchronized void startDump(long intervalSeconds, PrintStream out) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(dump()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static String dump() {
+        StringBuilder text = new StringBuilder(1024);
+        text.append("Metrics at ").append(LocalDateTime.now().withNano(0)).append('\n');
+        text.append(String.format("  %-40s %10s %10s %10s %10s %10s %10s%n", "timer (us)", "count", "mean", "p50",
+                "p90", "p99", "max"));
+        timers.forEach((name, timer) -> {
+            if (timer.getCount() > 0) {
+                text.append(String.format("  %-40s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", name,
+                        timer.getCount(), timer.getMeanMicros(), timer.getP50Micros(), timer.getP90Micros(),
+                        timer.getP99Micros(), timer.getMaxMicros()));
+            }
+        });
+        counters.forEach((name, counter) -> text.append(String.format("  %-40s %10d%n", name,
+                counter.getCount())));
+        return text.toString();
+    }
+
+    private static void register(String type, String name, Object bean) {
+        try {
+            ObjectName objectName = new ObjectName("cricketclub:type=" + type + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, objectName);
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered, by enable() or an earlier lookup
+        } catch (JMException e) {
+            System.err.println("Could not register metric " + name + ": " + e.getMessage());
+        }
+    }
+}
+
+// Latency histogram in the style of HdrHistogram: values are counted in buckets that are
+// exact below 32ns and then split each power of two into 32 steps, so any recorded value is
+// reported to within about 3% with a fixed 15KB of counts and no allocation per record.
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // The highest value in the bucket holding the given percentile, capped at the maximum seen
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int bucketOf(long value) {
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = msb - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
+
+// Minimal JSON text builder for the server responses
+class JsonWriter {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean needsComma;
+
+    public JsonWriter beginObject() {
+        comma();
+        out.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        out.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        comma();
+        out.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        out.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        comma();
+        string(name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        comma();
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        comma();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    private void comma() {
+        if (needsComma) {
+            out.append(',');
+        }
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
+
+// Read-only HTTP/JSON access to a club without the GUI. Each request runs on its own
+// virtual thread and reads the club through its thread-safe getters.
+//   GET /squad                 players in the squad
+//   GET /players/{id}          any registered player
+//   GET /coach                 the coach, or null
+//   GET /matches               every match with its totals
+//   GET /matches/{index}       one match with each player's performance
+//   GET /opponents/{name}      runs, wickets and matches against an opponent
+class ClubServer {
+    private final Club club;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ClubServer(Club club, int port) throws IOException {
+        this.club = club;
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/squad", exchange -> handle(exchange, exactly("/squad", this::squad)));
+        server.createContext("/players/", exchange -> handle(exchange, this::player));
+        server.createContext("/coach", exchange -> handle(exchange, exactly("/coach", this::coach)));
+        server.createContext("/matches", exchange -> handle(exchange, this::matches));
+        server.createContext("/opponents/", exchange -> handle(exchange, this::opponent));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // Returns null for a path it does not know, which is answered with a 404
+    private interface Route {
+        String respond(String path);
+    }
+
+    // A context matches every path that starts with it, so a route for one path checks it
+    private static Route exactly(String path, Supplier<String> respond) {
+        return requested -> requested.equals(path) ? respond.get() : null;
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        int status = 200;
+        String body;
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            status = 405;
+            body = error("Only GET is supported");
+        } else {
+            String path = exchange.getRequestURI().getPath();
+            try {
+                body = route.respond(path);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                body = null;
+            } catch (RuntimeException e) {
+                // Answer anyway, so the client gets an error rather than a dropped connection
+                System.err.println("Error serving " + path + ": " + e);
+                status = 500;
+                body = error("Internal server error");
+            }
+            if (body == null) {
+                status = 404;
+                body = error("Not found");
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String squad() {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Player player : club.getPlayers()) {
+            writePlayer(json, player);
+        }
+        return json.endArray().toString();
+    }
+
+    private String player(String path) {
+        int id = Integer.parseInt(lastSegment(path, "/players/"));
+        return writePlayer(new JsonWriter(), club.getPlayerById(id)).toString();
+    }
+
+    private String coach() {
+        Coach coach = club.getCoach();
+        if (coach == null) {
+            return "null";
+        }
+        return new JsonWriter().beginObject()
+                .field("name", coach.getName())
+                .field("age", coach.getAge())
+                .field("experienceYears", coach.getExperienceYears())
+                .endObject().toString();
+    }
+
+    private String matches(String path) {
+        if (path.equals("/matches") || path.equals("/matches/")) {
+            JsonWriter json = new JsonWriter().beginArray();
+            for (Match match : club.getMatches()) {
+                writeMatchSummary(json, match).endObject();
+            }
+            return json.endArray().toString();
+        }
+        Match match = club.getMatch(Integer.parseInt(lastSegment(path, "/matches/")));
+        JsonWriter json = writeMatchSummary(new JsonWriter(), match);
+        json.name("players").beginArray();
+        int count = match.getPerformanceCount();
+        for (int row = 0; row < count; row++) {
+            Player player = match.getPlayer(row);
+            json.beginObject()
+                    .field("playerId", player.getId())
+                    .field("name", player.getName())
+                    .field("runs", match.getRuns(row))
+                    .field("wickets", match.getWickets(row))
+                    .endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String opponent(String path) {
+        String opponent = lastSegment(path, "/opponents/");
+        OpponentStats stats = club.getOpponentStats(opponent);
+        if (stats == null) {
+            return null;
+        }
+        return new JsonWriter().beginObject()
+                .field("opponent", opponent)
+                .field("matches", stats.getMatchesPlayed())
+                .field("runs", stats.getRuns())
+                .field("wickets", stats.getWickets())
+                .endObject().toString();
+    }
+
+    private static JsonWriter writePlayer(JsonWriter json, Player player) {
+        return json.beginObject()
+                .field("id", player.getId())
+                .field("name", player.getName())
+                .field("age", player.getAge())
+                .field("role", player.getRole())
+                .field("matchesPlayed", player.getMatchesPlayed())
+                .field("runsScored", player.getRunsScored())
+                .field("wicketsTaken", player.getWicketsTaken())
+                .field("trainingSessions", player.getTrainingSessions())
+                .endObject();
+    }
+
+    // Leaves the object open so the caller can add fields
+    private static JsonWriter writeMatchSummary(JsonWriter json, Match match) {
+        return json.beginObject()
+                .field("index", match.getIndex())
+                .field("opponent", match.getOpponent())
+                .field("date", match.getDate() == null ? null : match.getDate().toString())
+                .field("venue", match.getVenue())
+                .field("status", match.getStatus().name())
+                .field("performances", match.getPerformanceCount())
+                .field("totalRuns", match.getTotalRuns())
+                .field("totalWickets", match.getTotalWickets());
+    }
+
+    private static String lastSegment(String path, String prefix) {
+        if (!path.startsWith(prefix) || path.length() == prefix.length()) {
+            throw new IndexOutOfBoundsException(path);
+        }
+        return path.substring(prefix.length());
+    }
+
+    private static String error(String message) {
+        return new JsonWriter().beginObject().field("error", message).endObject().toString();
+    }
+}
+
+// Runs club work on a background thread and passes the result back on the Event Dispatch
+// Thread. Work that is still running after a moment gets a progress dialog with a Cancel
+// button; the work should check isCancelled() as it goes and report how far it has got.
+class ClubTask<T> extends SwingWorker<T, Void> {
+    private static final int PROGRESS_DELAY_MS = 300;
+
+    interface Work<T> {
+        T run(ClubTask<T> task) throws Exception;
+    }
+
+    private final JFrame parent;
+    private final String title;
+    private final Work<T> work;
+    private final Consumer<T> onDone;
+    private final javax.swing.Timer progressTimer;
+    private JDialog progressDialog;
+
+    private ClubTask(JFrame parent, String title, Work<T> work, Consumer<T> onDone) {
+        this.parent = parent;
+        this.title = title;
+        this.work = work;
+        this.onDone = onDone;
+        progressTimer = new javax.swing.Timer(PROGRESS_DELAY_MS, e -> showProgress());
+        progressTimer.setRepeats(false);
+    }
+
+    // Must be called on the Event Dispatch Thread
+    public static <T> ClubTask<T> run(JFrame parent, String title, Work<T> work, Consumer<T> onDone) {
+        ClubTask<T> task = new ClubTask<>(parent, title, work, onDone);
+        task.progressTimer.start();
+        task.execute();
+        return task;
+    }
+
+    public void reportProgress(long done, long total) {
+        setProgress(total <= 0 ? 0 : (int) Math.min(100, done * 100 / total));
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        return work.run(this);
+    }
+
+    @Override
+    protected void done() {
+        progressTimer.stop();
+        if (progressDialog != null) {
+            progressDialog.dispose();
+        }
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            onDone.accept(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(parent, title + " failed: " + e.getCause().getMessage(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void showProgress() {
+        if (isDone()) {
+            return;
+        }
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setValue(getProgress());
+        progressBar.setStringPainted(true);
+        addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel(true));
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel(title + "..."), BorderLayout.NORTH);
+        panel.add(progressBar, BorderLayout.CENTER);
+        panel.add(cancelButton, BorderLayout.SOUTH);
+
+        progressDialog = new JDialog(parent, title, Dialog.ModalityType.MODELESS);
+        progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        progressDialog.setContentPane(panel);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(parent);
+        progressDialog.setVisible(true);
+    }
+}
+
+// Panel that paints an image stretched over its whole area. The image is decoded once on a
+// background thread, and the scaled copy is kept in a VolatileImage that is only rebuilt
+// when the panel is resized or the video memory copy is lost.
+class BackgroundPanel extends JPanel {
+    private volatile BufferedImage source;
+    private VolatileImage scaled;
+
+    public BackgroundPanel(File imageFile) {
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() throws IOException {
+                return ImageIO.read(imageFile);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    source = get();
+                    repaint();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // No background if the image is missing or unreadable
+                }
+            }
+        }.execute();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        BufferedImage image = source;
+        int width = getWidth();
+        int height = getHeight();
+        if (image == null || width <= 0 || height <= 0) {
+            super.paintComponent(g);
+            return;
+        }
+        do {
+            int status = scaled == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                    : scaled.validate(getGraphicsConfiguration());
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE
+                    || scaled.getWidth() != width || scaled.getHeight() != height) {
+                if (scaled != null) {
+                    scaled.flush();
+                }
+                scaled = createVolatileImage(width, height);
+                if (scaled == null) {
+                    // Not displayable yet, so there is nothing to cache into
+                    g.drawImage(image, 0, 0, width, height, null);
+                    return;
+                }
+                renderScaled(image);
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                renderScaled(image);
+            }
+            g.drawImage(scaled, 0, 0, null);
+        } while (scaled.contentsLost());
+    }
+
+    private void renderScaled(BufferedImage image) {
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+        } finally {
+            g.dispose();
+        }
+    }
+}
+
+// Combo box model over the results of a player search, refreshed as the search text changes.
+// Only the first MAX_RESULTS matches are listed.
+class PlayerSearchModel extends AbstractListModel<Player> implements ComboBoxModel<Player> {
+    public static final int MAX_RESULTS = 500;
+
+    private final Club club;
+    private java.util.List<Player> results;
+    private Object selected;
+
+    // Builds the club's search index if it has not been built yet, so that typing in the
+    // search field only queries it; call it off the Event Dispatch Thread
+    public PlayerSearchModel(Club club) {
+        this.club = club;
+        club.prepareSearch();
+        results = club.searchPlayers("", MAX_RESULTS);
+        selected = results.isEmpty() ? null : results.get(0);
+    }
+
+    // Keeps the current selection when nothing matches, so a dialog always has a player to act on
+    public void filter(String query) {
+        results = club.searchPlayers(query, MAX_RESULTS);
+        if (!results.isEmpty() && !results.contains(selected)) {
+            selected = results.get(0);
+        }
+        fireContentsChanged(this, -1, -1);
+    }
+
+    // A text field that filters this model as the user types
+    public JTextField createSearchField() {
+        JTextField searchField = new JTextField(15);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filter(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filter(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filter(searchField.getText());
+            }
+        });
+        return searchField;
+    }
+
+    @Override
+    public int getSize() {
+        return results.size();
+    }
+
+    @Override
+    public Player getElementAt(int index) {
+        return results.get(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        selected = item;
+        fireContentsChanged(this, -1, -1);
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+}
+
+// Table over a snapshot of the squad. Cells are read from the players only when a row is
+// painted, so opening the table costs the same for ten players or a hundred thousand.
+class SquadTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Id", "Name", "Age", "Role", "Matches", "Runs", "Wickets", "Average",
+            "Training"};
+
+    private final java.util.List<Player> players;
+
+    public SquadTableModel(java.util.List<Player> players) {
+        this.players = players;
+    }
+
+    @Override
+    public int getRowCount() {
+        return players.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 1 || column == 3) {
+            return String.class;
+        }
+        return column == 7 ? Double.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Player player = players.get(row);
+        switch (column) {
+            case 0:
+                return player.getId();
+            case 1:
+                return player.getName();
+            case 2:
+                return player.getAge();
+            case 3:
+                return player.getRole();
+            case 4:
+                return player.getMatchesPlayed();
+            case 5:
+                return player.getRunsScored();
+            case 6:
+                return player.getWicketsTaken();
+            case 7:
+                return player.getBattingAverage();
+            default:
+                return player.getTrainingSessions();
+        }
+    }
+
+    public Player getPlayer(int row) {
+        return players.get(row);
+    }
+}
+
+// Table with one row per performance across every match. Only the running row count of
+// each match is stored; a table row is found by binary search over those counts.
+class PerformanceTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Match", "Opponent", "Player", "Runs", "Wickets"};
+
+    private final Club club;
+    private final int[] matchNumbers;
+    private final String[] opponents;
+    private final int[] firstRow;
+    private int[] playerIds = new int[16];
+    private int[] runs = new int[16];
+    private int[] wickets = new int[16];
+    private int rowCount;
+
+    // Copies the figures of every match when the model is built, a match at a time under its
+    // lock, so rows recorded, changed or removed afterwards do not show until it is built again.
+    // Player names are looked up as rows are shown.
+    public PerformanceTableModel(Club club) {
+        this.club = club;
+        java.util.List<Match> matches = club.getMatches();
+        matchNumbers = new int[matches.size()];
+        opponents = new String[matches.size()];
+        firstRow = new int[matches.size()];
+        for (int i = 0; i < firstRow.length; i++) {
+            Match match = matches.get(i);
+            matchNumbers[i] = match.getIndex() + 1;
+            opponents[i] = match.getOpponent();
+            firstRow[i] = rowCount;
+            match.forEachPerformance(this::addRow);
+        }
+    }
+
+    private void addRow(int playerId, int runsScored, int wicketsTaken) {
+        if (rowCount == playerIds.length) {
+            playerIds = Arrays.copyOf(playerIds, rowCount * 2);
+            runs = Arrays.copyOf(runs, rowCount * 2);
+            wickets = Arrays.copyOf(wickets, rowCount * 2);
+        }
+        playerIds[rowCount] = playerId;
+        runs[rowCount] = runsScored;
+        wickets[rowCount++] = wicketsTaken;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 || column == 2 ? String.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return matchNumbers[matchOf(row)];
+            case 1:
+                return opponents[matchOf(row)];
+            case 2:
+                return club.getPlayerById(playerIds[row]).getName();
+            case 3:
+                return runs[row];
+            default:
+                return wickets[row];
+        }
+    }
+
+    // Last match whose first row is at or before the given row; matches with no rows are skipped
+    private int matchOf(int row) {
+        int low = 0;
+        int high = firstRow.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstRow[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
+
+// --startup-timing: notes when each stage of a cold start is reached and, once the window
+// has painted and the club has loaded, prints the times since the JVM started and exits.
+// Exiting also lets a launch script with an AppCDS archive write it on the first run.
+// Marks cost one volatile read when timing is off.
+final class StartupTiming {
+    private static volatile boolean enabled;
+    private static final Map<String, Long> marks = new LinkedHashMap<>(); // Guarded by StartupTiming.class
+    private static boolean reported; // Guarded by StartupTiming.class
+
+    private StartupTiming() {
+    }
+
+    public static void enable() {
+        enabled = true;
+        mark("main");
+    }
+
+    // Only the first time each stage is reached is kept
+    public static void mark(String stage) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (StartupTiming.class) {
+            marks.putIfAbsent(stage, System.currentTimeMillis());
+        }
+    }
+
+    public static void firstFramePainted() {
+        if (enabled) {
+            mark("first frame painted");
+            finishIfDone();
+        }
+    }
+
+    public static void clubLoaded() {
+        if (enabled) {
+            mark("club loaded");
+            finishIfDone();
+        }
+    }
+
+    // Called from paintComponent among other places, so the exit is posted to run after the paint
+    private static synchronized void finishIfDone() {
+        if (reported || !marks.containsKey("first frame painted") || !marks.containsKey("club loaded")) {
+            return;
+        }
+        reported = true;
+        // Read only now so that loading the management classes is not part of the times
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        StringBuilder report = new StringBuilder("Startup timing (ms since JVM start):\n");
+        marks.forEach((stage, time) -> report.append(String.format("  %-22s %6d%n", stage, time - jvmStart)));
+        System.out.print(report);
+        SwingUtilities.invokeLater(() -> System.exit(0));
+    }
+}
+
+public class Main {
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final Color BUTTON_COLOR = new Color(65, 105, 225);
+
+    private static Club club;
+    private static ClubStore store;
+    private static ClubHistory history; // Every change made from the window goes through it so it can be undone
+    private static long dialogNanos; // Time the running timed handler has spent in modal dialogs
+
+    // Pass --server [--port=N] to serve the club over HTTP instead of opening the window,
+    // or --import=PATH / --export=DIR to move the saved club's data in or out in bulk
+    // --metrics[=SECONDS] turns on metrics and prints them to standard error every SECONDS (default 60)
+    // --startup-timing reports how long the window took to appear and the club to load, then exits
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--startup-timing")) {
+            StartupTiming.enable();
+        }
+        for (String arg : args) {
+            if (arg.equals("--metrics") || arg.startsWith("--metrics=")) {
+                ClubMetrics.enable();
+                ClubMetrics.startDump(arg.length() > "--metrics=".length()
+                        ? parseNumber(arg, 1, Long.MAX_VALUE, "--metrics[=SECONDS], SECONDS at least 1") : 60,
+                        System.err);
+            }
+        }
+        if (Arrays.asList(args).contains("--server")) {
+            runServer(args);
+            return;
+        }
+        for (String arg : args) {
+            if (arg.startsWith("--import=") || arg.startsWith("--export=")) {
+                runTransfer(arg.substring(2, 8), Path.of(arg.substring("--import=".length())));
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(Main::createAndShowGUI);
+    }
+
+    // The number after the = in the option, or exits with the usage if it is not a whole number
+    // from min to max
+    private static long parseNumber(String arg, long min, long max, String usage) {
+        try {
+            long number = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below along with out of range numbers
+        }
+        System.err.println("Invalid option " + arg + "\nUsage: " + usage);
+        System.exit(2);
+        return min;
+    }
+
+    private static void runServer(String[] args) {
+        int port = 8080;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = (int) parseNumber(arg, 0, 65535, "--server [--port=N], N from 0 to 65535");
+            }
+        }
+        try {
+            club = loadClub();
+            ClubServer server = new ClubServer(club, port);
+            server.start();
+            System.out.println("Serving " + club.getName() + " on http://localhost:" + server.getPort() + "/");
+        } catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Importing reads a .bin file, or players.csv, performances.csv and, if it is there,
+    // matches.csv from a directory. Exporting writes all four into the directory.
+    private static void runTransfer(String direction, Path path) {
+        try {
+            club = loadClub();
+            long start = System.nanoTime();
+            if (direction.equals("export")) {
+                Files.createDirectories(path);
+                int players = ClubTransfer.exportPlayersCsv(club, path.resolve(ClubTransfer.PLAYERS_FILE));
+                int matches = ClubTransfer.exportMatchesCsv(club, path.resolve(ClubTransfer.MATCHES_FILE));
+                int rows = ClubTransfer.exportPerformancesCsv(club, path.resolve(ClubTransfer.PERFORMANCES_FILE));
+                ClubTransfer.exportBinary(club, path.resolve(ClubTransfer.BINARY_FILE));
+                System.out.println("Exported " + players + " players, " + matches + " matches and " + rows
+                        + " performances to " + path);
+            } else if (Files.isDirectory(path)) {
+                int[] clubIds = ClubTransfer.importPlayersCsv(club, path.resolve(ClubTransfer.PLAYERS_FILE));
+                Path matchesFile = path.resolve(ClubTransfer.MATCHES_FILE);
+                Map<Integer, Match> matches = Files.exists(matchesFile)
+                        ? ClubTransfer.importMatchesCsv(club, matchesFile) : null;
+                int rows = ClubTransfer.importPerformancesCsv(club, path.resolve(ClubTransfer.PERFORMANCES_FILE),
+                        clubIds, matches);
+                System.out.println("Imported " + rows + " performances from " + path);
+            } else {
+                ClubTransfer.importBinary(club, path);
+                System.out.println("Imported " + path);
+            }
+            System.out.printf("Took %.1f s%n", (System.nanoTime() - start) / 1e9);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not " + direction + ": " + e.getMessage());
+            System.exit(1);
+        } catch (RuntimeException e) {
+            System.err.println("Could not " + direction + ": " + e);
+            System.exit(1);
+        }
+    }
+
+    private static void createAndShowGUI() {
+        JFrame frame = new JFrame("Cricket Club Management System");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(800, 600); // Set initial window size
+
+        JPanel panel = new BackgroundPanel(new File("cricket.jpg")) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                StartupTiming.firstFramePainted();
+            }
+        };
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+
+        JLabel titleLabel = new JLabel("Welcome to the Cricket Club Management System");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        titleLabel.setBorder(BorderFactory.createEmptyBorder(30, 0, 50, 0));
+        titleLabel.setForeground(Color.WHITE);
+        panel.add(titleLabel);
+
+        JButton addButton = createStyledButton("Add Player");
+        addButton.addActionListener(timed("gui.addPlayerDialog", () -> addPlayerDialog(frame)));
+        panel.add(addButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton removeButton = createStyledButton("Remove Player");
+        removeButton.addActionListener(timed("gui.removePlayerDialog", () -> removePlayerDialog(frame)));
+        panel.add(removeButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton addCoachButton = createStyledButton("Add Coach");
+        addCoachButton.addActionListener(timed("gui.addCoachDialog", () -> addCoachDialog(frame)));
+        panel.add(addCoachButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton removeCoachButton = createStyledButton("Remove Coach");
+        removeCoachButton.addActionListener(timed("gui.removeCoachDialog", () -> removeCoachDialog(frame)));
+        panel.add(removeCoachButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton displayButton = createStyledButton("Display Squad");
+        displayButton.addActionListener(timed("gui.displaySquadDialog", () -> displaySquadDialog(frame)));
+        panel.add(displayButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton matchButton = createStyledButton("Schedule Match");
+        matchButton.addActionListener(timed("gui.scheduleMatchDialog", () -> scheduleMatchDialog(frame)));
+        panel.add(matchButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton calculateRunsButton = createStyledButton("Calculate Runs Against Opponent");
+        calculateRunsButton.addActionListener(timed("gui.calculateRunsDialog", () -> calculateRunsDialog(frame)));
+        panel.add(calculateRunsButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton recordPerformanceButton = createStyledButton("Record Player Performance");
+        recordPerformanceButton.addActionListener(timed("gui.recordPerformanceDialog", () -> recordPerformanceDialog(frame)));
+        panel.add(recordPerformanceButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton displayPlayerPerformancesButton = createStyledButton("Display Player Performances");
+        displayPlayerPerformancesButton.addActionListener(timed("gui.displayPlayerPerformancesDialog", () -> displayPlayerPerformancesDialog(frame)));
+        panel.add(displayPlayerPerformancesButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton recordTrainingSessionButton = createStyledButton("Record Training Session");
+        recordTrainingSessionButton.addActionListener(timed("gui.recordTrainingSessionDialog", () -> recordTrainingSessionDialog(frame)));
+        panel.add(recordTrainingSessionButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton displayTrainingSessionsButton = createStyledButton("Display Training Sessions");
+        displayTrainingSessionsButton.addActionListener(timed("gui.displayTrainingSessionsDialog", () -> displayTrainingSessionsDialog(frame)));
+        panel.add(displayTrainingSessionsButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton statisticsButton = createStyledButton("Season Statistics");
+        statisticsButton.addActionListener(timed("gui.displayStatisticsDialog", () -> displayStatisticsDialog(frame)));
+        panel.add(statisticsButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        JButton simulateButton = createStyledButton("Simulate Match");
+        simulateButton.addActionListener(timed("gui.simulateMatchDialog", () -> simulateMatchDialog(frame)));
+        panel.add(simulateButton);
+
+        JMenuItem undoItem = new JMenuItem("Undo");
+        undoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z,
+                Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        undoItem.addActionListener(timed("gui.undo", () -> undo(frame, true)));
+        JMenuItem redoItem = new JMenuItem("Redo");
+        redoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y,
+                Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        redoItem.addActionListener(timed("gui.redo", () -> undo(frame, false)));
+        JMenu editMenu = new JMenu("Edit");
+        editMenu.add(undoItem);
+        editMenu.add(redoItem);
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(editMenu);
+        frame.setJMenuBar(menuBar);
+
+        frame.add(panel);
+        frame.setLocationRelativeTo(null); // Center the frame
+        undoItem.setEnabled(false);
+        redoItem.setEnabled(false);
+        setButtonsEnabled(panel, false);
+        frame.setVisible(true);
+        StartupTiming.mark("window shown");
+
+        // Initialize the club from the saved data, if any. Loading happens off the Event
+        // Dispatch Thread so the window paints straight away; the buttons wait for it.
+        new SwingWorker<Club, Void>() {
+            @Override
+            protected Club doInBackground() {
+                return openClub(frame);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    club = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    showMessageDialog(frame, "Could not load saved club data: " + e.getCause()
+                            + "\nChanges will not be saved.", "Error", JOptionPane.ERROR_MESSAGE);
+                    club = new Club("Cricket Club", null);
+                }
+                history = new ClubHistory(club, ClubHistory.DEFAULT_CAPACITY);
+                history.setListener(() -> {
+                    undoItem.setEnabled(history.canUndo());
+                    undoItem.setText(history.canUndo() ? "Undo " + history.getUndoDescription() : "Undo");
+                    redoItem.setEnabled(history.canRedo());
+                    redoItem.setText(history.canRedo() ? "Redo " + history.getRedoDescription() : "Redo");
+                });
+                setButtonsEnabled(panel, true);
+                StartupTiming.clubLoaded();
+            }
+        }.execute();
+    }
+
+    private static void setButtonsEnabled(Container panel, boolean enabled) {
+        for (Component component : panel.getComponents()) {
+            if (component instanceof JButton) {
+                component.setEnabled(enabled);
+            }
+        }
+    }
+
+    private static void undo(JFrame parentFrame, boolean undo) {
+        try {
+            if (undo) {
+                history.undo();
+            } else {
+                history.redo();
+            }
+        } catch (IllegalStateException e) {
+            showMessageDialog(parentFrame, "Could not " + (undo ? "undo" : "redo") + ": " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Called off the Event Dispatch Thread
+    private static Club openClub(JFrame frame) {
+        try {
+            return loadClub();
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> showMessageDialog(frame, "Could not load saved club data: "
+                    + e.getMessage() + "\nChanges will not be saved.", "Error", JOptionPane.ERROR_MESSAGE));
+            return new Club("Cricket Club", null);
+        }
+    }
+
+    private static Club loadClub() throws IOException {
+        store = new ClubStore(new File("club-data"));
+        Club loaded = store.load("Cricket Club");
+        Runtime.getRuntime().addShutdownHook(new Thread(Main::closeStore));
+        return loaded;
+    }
+
+    private static void closeStore() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Could not close club data: " + e.getMessage());
+        }
+    }
+
+    // Times the handler with ClubMetrics. The time its modal dialogs stay open is left out, so
+    // what is recorded is the handler's own work: the lookups, the club change and the refresh.
+    private static ActionListener timed(String name, Runnable handler) {
+        ClubMetrics.Timer timer = ClubMetrics.timer(name);
+        return e -> {
+            long outerDialogNanos = dialogNanos;
+            dialogNanos = 0;
+            long start = timer.start();
+            try {
+                handler.run();
+            } finally {
+                timer.stop(start == 0 ? 0 : start + dialogNanos);
+                dialogNanos = outerDialogNanos;
+            }
+        };
+    }
+
+    // The handlers show their dialogs through these, which add the time each one is open to
+    // dialogNanos
+    private static int showConfirmDialog(Component parent, Object message, String title, int optionType) {
+        long start = System.nanoTime();
+        try {
+            return JOptionPane.showConfirmDialog(parent, message, title, optionType);
+        } finally {
+            dialogNanos += System.nanoTime() - start;
+        }
+    }
+
+    private static void showMessageDialog(Component parent, Object message) {
+        long start = System.nanoTime();
+        try {
+            JOptionPane.showMessageDialog(parent, message);
+        } finally {
+            dialogNanos += System.nanoTime() - start;
+        }
+    }
+
+    private static void showMessageDialog(Component parent, Object message, String title, int messageType) {
+        long start = System.nanoTime();
+        try {
+            JOptionPane.showMessageDialog(parent, message, title, messageType);
+        } finally {
+            dialogNanos += System.nanoTime() - start;
+        }
+    }
+
+    private static JButton createStyledButton(String text) {
+        JButton button = new JButton(text);
+        button.setFont(BUTTON_FONT);
+        button.setAlignmentX(Component.CENTER_ALIGNMENT);
+        button.setPreferredSize(new Dimension(300, 50)); // Set fixed button size
+        button.setBackground(BUTTON_COLOR);
+        button.setForeground(Color.WHITE);
+        button.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        button.setFocusPainted(false);
+        button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+
+    private static void addPlayerDialog(JFrame parentFrame) {
+        JTextField nameField = new JTextField(10);
+        JTextField ageField = new JTextField(5);
+        JTextField roleField = new JTextField(10);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Name:"));
+        panel.add(nameField);
+        panel.add(new JLabel("Age:"));
+        panel.add(ageField);
+        panel.add(new JLabel("Role:"));
+        panel.add(roleField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Add Player", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                String name = nameField.getText().trim();
+                int age = Integer.parseInt(ageField.getText().trim());
+                String role = roleField.getText().trim();
+                Player player = new Player(name, age, role);
+                history.addPlayer(player);
+                showMessageDialog(parentFrame, "Player added successfully.");
+            } catch (NumberFormatException e) {
+                showMessageDialog(parentFrame, "Invalid input. Please enter valid data.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalArgumentException e) {
+                showMessageDialog(parentFrame, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // Sets up the player search off the Event Dispatch Thread, then opens the dialog with it
+    private static void withSquadModel(JFrame parentFrame, Consumer<PlayerSearchModel> dialog) {
+        ClubTask.run(parentFrame, "Loading squad", task -> new PlayerSearchModel(club), dialog);
+    }
+
+    private static void removePlayerDialog(JFrame parentFrame) {
+        if (club.getPlayerCount() == 0) {
+            showMessageDialog(parentFrame, "No players to remove.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        withSquadModel(parentFrame, players -> showRemovePlayerDialog(parentFrame, players));
+    }
+
+    private static void showRemovePlayerDialog(JFrame parentFrame, PlayerSearchModel players) {
+        JComboBox<Player> playerComboBox = new JComboBox<>(players);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Search Players:"));
+        panel.add(players.createSearchField());
+        panel.add(new JLabel("Select Player:"));
+        panel.add(playerComboBox);
+
+        int result = showConfirmDialog(parentFrame, panel, "Remove Player", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            Player selectedPlayer = (Player) playerComboBox.getSelectedItem();
+            history.removePlayer(selectedPlayer);
+            showMessageDialog(parentFrame, "Player removed successfully.");
+        }
+    }
+
+    private static void displaySquadDialog(JFrame parentFrame) {
+        ClubTask.<TableModel>run(parentFrame, "Loading squad", task -> new SquadTableModel(club.getPlayers()),
+                model -> showTableDialog(parentFrame, model, "Club Squad - " + club.getName()));
+    }
+
+    // Shows a sortable table with a box that filters rows on any column as the user types
+    private static void showTableDialog(JFrame parentFrame, TableModel model, String title) {
+        JTable table = new JTable(model);
+        TableRowSorter<TableModel> sorter = new TableRowSorter<>(model);
+        table.setRowSorter(sorter);
+        table.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(640, 360));
+
+        JTextField filterField = new JTextField(20);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filter();
+            }
+
+            private void filter() {
+                String text = filterField.getText().trim();
+                sorter.setRowFilter(text.isEmpty() ? null : RowFilter.regexFilter("(?i)" + Pattern.quote(text)));
+            }
+        });
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Filter:"));
+        filterPanel.add(filterField);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(filterPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        showMessageDialog(parentFrame, panel, title, JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private static void scheduleMatchDialog(JFrame parentFrame) {
+        JTextField opponentField = new JTextField(20);
+        JTextField dateField = new JTextField(10);
+        JTextField venueField = new JTextField(20);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Opponent:"));
+        panel.add(opponentField);
+        panel.add(new JLabel("Date (YYYY-MM-DD, optional):"));
+        panel.add(dateField);
+        panel.add(new JLabel("Venue (optional):"));
+        panel.add(venueField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Schedule Match", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                String opponent = opponentField.getText().trim();
+                String date = dateField.getText().trim();
+                String venue = venueField.getText().trim();
+                history.scheduleMatch(opponent, date.isEmpty() ? null : LocalDate.parse(date),
+                        venue.isEmpty() ? null : venue);
+                showMessageDialog(parentFrame, "Match against " + opponent + " scheduled successfully.");
+            } catch (DateTimeParseException e) {
+                showMessageDialog(parentFrame, "Invalid date. Please use YYYY-MM-DD.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalArgumentException e) {
+                showMessageDialog(parentFrame, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private static void addCoachDialog(JFrame parentFrame) {
+        JTextField nameField = new JTextField(10);
+        JTextField ageField = new JTextField(5);
+        JTextField experienceField = new JTextField(5);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Name:"));
+        panel.add(nameField);
+        panel.add(new JLabel("Age:"));
+        panel.add(ageField);
+        panel.add(new JLabel("Experience (years):"));
+        panel.add(experienceField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Add Coach", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                String name = nameField.getText().trim();
+                int age = Integer.parseInt(ageField.getText().trim());
+                int experience = Integer.parseInt(experienceField.getText().trim());
+                Coach coach = new Coach(name, age, experience);
+                history.addCoach(coach);
+                showMessageDialog(parentFrame, "Coach added successfully.");
+            } catch (NumberFormatException e) {
+                showMessageDialog(parentFrame, "Invalid input. Please enter valid data.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalArgumentException e) {
+                showMessageDialog(parentFrame, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private static void removeCoachDialog(JFrame parentFrame) {
+        if (club.getCoach() == null) {
+            showMessageDialog(parentFrame, "No coach to remove.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JComboBox<Coach> coachComboBox = new JComboBox<>();
+        coachComboBox.addItem(club.getCoach());
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Select Coach to Remove:"));
+        panel.add(coachComboBox);
+
+        int result = showConfirmDialog(parentFrame, panel, "Remove Coach", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            Coach selectedCoach = (Coach) coachComboBox.getSelectedItem();
+            int confirmResult = showConfirmDialog(parentFrame, "Remove Coach: " + selectedCoach.getName() + "?", "Confirmation", JOptionPane.YES_NO_OPTION);
+            if (confirmResult == JOptionPane.YES_OPTION) {
+                history.removeCoach();
+                showMessageDialog(parentFrame, "Coach removed successfully.");
+            }
+        }
+    }
+
+    private static void simulateMatchDialog(JFrame parentFrame) {
+        if (club.getPlayerCount() == 0) {
+            showMessageDialog(parentFrame, "No players in the squad.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JTextField opponentField = new JTextField(20);
+        JList<Player> teamList = new JList<>(club.getPlayers().toArray(new Player[0]));
+        teamList.setVisibleRowCount(11);
+        JTextField targetField = new JTextField(5);
+        JTextField inningsField = new JTextField("1000000", 10);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        JPanel fields = new JPanel(new GridLayout(0, 1));
+        fields.add(new JLabel("Opponent:"));
+        fields.add(opponentField);
+        fields.add(new JLabel("Select up to 11 Players (Ctrl+click):"));
+        panel.add(fields, BorderLayout.NORTH);
+        panel.add(new JScrollPane(teamList), BorderLayout.CENTER);
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(new JLabel("Target (runs to beat):"));
+        options.add(targetField);
+        options.add(new JLabel("Innings to Simulate:"));
+        options.add(inningsField);
+        panel.add(options, BorderLayout.SOUTH);
+
+        int result = showConfirmDialog(parentFrame, panel, "Simulate Match", JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        java.util.List<Player> team = teamList.getSelectedValuesList();
+        if (team.isEmpty() || team.size() > 11) {
+            showMessageDialog(parentFrame, "Please select between 1 and 11 players.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        try {
+            String opponent = opponentField.getText().trim();
+            int target = Integer.parseInt(targetField.getText().trim());
+            long innings = Long.parseLong(inningsField.getText().trim());
+            if (innings < 1) {
+                throw new NumberFormatException();
+            }
+            ClubTask.<SimulationResult>run(parentFrame, "Simulating", task -> {
+                MatchSimulator simulator = new MatchSimulator(club, team, opponent);
+                return simulator.run(innings, target, System.nanoTime(), done -> {
+                    task.reportProgress(done, innings);
+                    return !task.isCancelled();
+                });
+            }, simulation -> {
+                JTextArea textArea = new JTextArea("Against " + opponent + "\n" + simulation, 8, 50);
+                textArea.setEditable(false);
+                showMessageDialog(parentFrame, new JScrollPane(textArea), "Match Simulation",
+                        JOptionPane.INFORMATION_MESSAGE);
+            });
+        } catch (NumberFormatException e) {
+            showMessageDialog(parentFrame, "Invalid input. Please enter valid numbers.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static void calculateRunsDialog(JFrame parentFrame) {
+        JTextField opponentField = new JTextField(20);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Opponent:"));
+        panel.add(opponentField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Calculate Runs Against Opponent",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            String opponent = opponentField.getText().trim();
+            ClubTask.run(parentFrame, "Calculating runs", task -> club.calculateRunsAgainstOpponent(opponent),
+                    totalRuns -> showMessageDialog(parentFrame,
+                            "Total runs scored against " + opponent + ": " + totalRuns));
+        }
+    }
+
+    private static Match selectedMatch;
+
+    private static void recordPerformanceDialog(JFrame parentFrame) {
+        if (club.getPlayerCount() == 0) {
+            showMessageDialog(parentFrame, "No players in the squad.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (club.getMatchCount() == 0) {
+            showMessageDialog(parentFrame, "No matches scheduled.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        withSquadModel(parentFrame, players -> showRecordPerformanceDialog(parentFrame, players));
+    }
+
+    private static void showRecordPerformanceDialog(JFrame parentFrame, PlayerSearchModel players) {
+        java.util.List<Match> matches = club.getMatches();
+        JComboBox<Match> matchComboBox = new JComboBox<>(matches.toArray(new Match[0]));
+        // Start from the last match scored, else the next one on the calendar, else the latest scheduled.
+        // An undo, redo or import may have taken the last match scored away since; say so rather
+        // than quietly starting somewhere else.
+        Match defaultMatch = selectedMatch;
+        if (defaultMatch != null && !matches.contains(defaultMatch)) {
+            showMessageDialog(parentFrame, defaultMatch + " is no longer in the fixture list.\n"
+                    + "Please check which match you are recording for.", "Match Removed",
+                    JOptionPane.WARNING_MESSAGE);
+            selectedMatch = null;
+            defaultMatch = null;
+        }
+        if (defaultMatch == null) {
+            defaultMatch = club.getNextMatch(LocalDate.now());
+        }
+        matchComboBox.setSelectedItem(defaultMatch != null ? defaultMatch : matches.get(matches.size() - 1));
+        JComboBox<Player> playerComboBox = new JComboBox<>(players);
+        JTextField runsField = new JTextField(5);
+        JTextField wicketsField = new JTextField(5);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Select Match:"));
+        panel.add(matchComboBox);
+        panel.add(new JLabel("Search Players:"));
+        panel.add(players.createSearchField());
+        panel.add(new JLabel("Select Player:"));
+        panel.add(playerComboBox);
+        panel.add(new JLabel("Runs Scored:"));
+        panel.add(runsField);
+        panel.add(new JLabel("Wickets Taken:"));
+        panel.add(wicketsField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Record Player Performance",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                Player selectedPlayer = (Player) playerComboBox.getSelectedItem();
+                int runs = Integer.parseInt(runsField.getText().trim());
+                int wickets = Integer.parseInt(wicketsField.getText().trim());
+                selectedMatch = (Match) matchComboBox.getSelectedItem();
+                history.recordMatchPerformance(selectedMatch, selectedPlayer, runs, wickets);
+                showMessageDialog(parentFrame, "Performance recorded successfully.");
+            } catch (NumberFormatException e) {
+                showMessageDialog(parentFrame, "Invalid input. Please enter valid data.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private static void displayPlayerPerformancesDialog(JFrame parentFrame) {
+        ClubTask.<TableModel>run(parentFrame, "Loading performances",
+                task -> new PerformanceTableModel(club),
+                model -> showTableDialog(parentFrame, model, "Player Performances"));
+    }
+
+    // New method for recording training sessions
+    private static void recordTrainingSessionDialog(JFrame parentFrame) {
+        if (club.getPlayerCount() == 0) {
+            showMessageDialog(parentFrame, "No players in the squad.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        withSquadModel(parentFrame, players -> showRecordTrainingSessionDialog(parentFrame, players));
+    }
+
+    private static void showRecordTrainingSessionDialog(JFrame parentFrame, PlayerSearchModel players) {
+        JComboBox<Player> playerComboBox = new JComboBox<>(players);
+        JTextField hoursField = new JTextField(5);
+        JTextField battingField = new JTextField(5);
+        JTextField bowlingField = new JTextField(5);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Search Players:"));
+        panel.add(players.createSearchField());
+        panel.add(new JLabel("Select Player:"));
+        panel.add(playerComboBox);
+        panel.add(new JLabel("Number of Hours:"));
+        panel.add(hoursField);
+        panel.add(new JLabel("Batting Practice (hours):"));
+        panel.add(battingField);
+        panel.add(new JLabel("Bowling Practice (hours):"));
+        panel.add(bowlingField);
+
+        int result = showConfirmDialog(parentFrame, panel, "Record Training Session",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                Player selectedPlayer = (Player) playerComboBox.getSelectedItem();
+                int hours = Integer.parseInt(hoursField.getText().trim());
+                int battingHours = Integer.parseInt(battingField.getText().trim());
+                int bowlingHours = Integer.parseInt(bowlingField.getText().trim());
+                // A clock set back must not put the session before the player's last one
+                long time = Math.max(System.currentTimeMillis() / 1000,
+                        selectedPlayer.getTrainingLog().getLastTime());
+                history.recordTrainingSession(selectedPlayer, time, hours * 60, battingHours * 60, bowlingHours * 60);
+                showMessageDialog(parentFrame, "Training session recorded successfully for " + selectedPlayer.getName() + ".");
+            } catch (IllegalArgumentException e) {
+                showMessageDialog(parentFrame, "Invalid input. Please enter valid data.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private static void displayStatisticsDialog(JFrame parentFrame) {
+        ClubTask.<String>run(parentFrame, "Calculating statistics", task -> {
+            ClubStatistics statistics = ClubStatistics.compute(club);
+            StringBuilder report = new StringBuilder();
+            appendLeaders(report, "Most Runs", statistics.topRunScorers(10));
+            appendLeaders(report, "Most Wickets", statistics.topWicketTakers(10));
+            appendLeaders(report, "Best Batting Average (3+ innings)", statistics.topBattingAverages(10, 3));
+            appendLeaders(report, "Most Wickets per Innings (3+ innings)", statistics.topWicketsPerInnings(10, 3));
+            return report.toString();
+        }, report -> {
+            JTextArea textArea = new JTextArea(report, 20, 60);
+            textArea.setEditable(false);
+            showMessageDialog(parentFrame, new JScrollPane(textArea), "Season Statistics",
+                    JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
+    private static void appendLeaders(StringBuilder report, String title, java.util.List<PlayerTotals> leaders) {
+        report.append(title).append(":\n");
+        for (int i = 0; i < leaders.size(); i++) {
+            report.append(i + 1).append(". ").append(leaders.get(i)).append("\n");
+        }
+        report.append("\n");
+    }
+
+    private static String describeLoad(String label, TrainingLoad load) {
+        return String.format("%s: %d session(s), %.1f h batting, %.1f h bowling", label, load.getSessions(),
+                load.getBattingMinutes() / 60.0, load.getBowlingMinutes() / 60.0);
+    }
+
+    // New method for displaying training sessions of individual players
+    private static void displayTrainingSessionsDialog(JFrame parentFrame) {
+        if (club.getPlayerCount() == 0) {
+            showMessageDialog(parentFrame, "No players in the squad.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        withSquadModel(parentFrame, players -> showTrainingSessionsDialog(parentFrame, players));
+    }
+
+    private static void showTrainingSessionsDialog(JFrame parentFrame, PlayerSearchModel players) {
+        JComboBox<Player> playerComboBox = new JComboBox<>(players);
+
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(new JLabel("Search Players:"));
+        panel.add(players.createSearchField());
+        panel.add(new JLabel("Select Player:"));
+        panel.add(playerComboBox);
+
+        int result = showConfirmDialog(parentFrame, panel, "Display Training Sessions",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            Player selectedPlayer = (Player) playerComboBox.getSelectedItem();
+            TrainingLog log = selectedPlayer.getTrainingLog();
+            long now = System.currentTimeMillis() / 1000;
+            showMessageDialog(parentFrame, selectedPlayer.getName() + " has attended "
+                    + selectedPlayer.getTrainingSessions() + " training session(s).\n"
+                    + describeLoad("Last 7 days", log.getLastWeek(now)) + "\n"
+                    + describeLoad("Last 30 days", log.getLastMonth(now)));
+        }
+    }
+}
+
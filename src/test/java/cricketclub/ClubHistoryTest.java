@@ -0,0 +1,198 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClubHistoryTest {
+    private static final long DAY = TrainingLog.DAY_SECONDS;
+
+    @TempDir
+    Path dir;
+
+    private File data;
+    private ClubStore store;
+    private Club club;
+    private ClubHistory history;
+    private Player batter;
+    private Player bowler;
+
+    @BeforeEach
+    void openClub() throws IOException {
+        data = dir.toFile();
+        store = new ClubStore(data);
+        club = store.load("Test");
+        history = new ClubHistory(club, ClubHistory.DEFAULT_CAPACITY);
+        batter = new Player("Batter", 21, "Batsman");
+        bowler = new Player("Bowler", 24, "Bowler");
+        history.addPlayer(batter);
+        history.addPlayer(bowler);
+    }
+
+    @AfterEach
+    void closeClub() throws IOException {
+        store.close();
+    }
+
+    // Undoing every kind of change journals records 12 to 14, which must replay to the same club
+    @Test
+    void undoingEverythingSurvivesReopen() throws IOException {
+        String before = describe(club);
+        Match match = history.scheduleMatch("Rivals", LocalDate.of(2024, 5, 4), "Home Ground");
+        history.recordMatchPerformance(match, batter, 40, 0);
+        history.recordMatchPerformance(match, bowler, 5, 3);
+        history.recordMatchPerformance(match, batter, 55, 1);
+        history.recordTrainingSession(batter, 10 * DAY, 90, 60, 30);
+        history.recordTrainingSession(batter, 11 * DAY, 60, 0, 60);
+        String after = describe(club);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(history.undo());
+        }
+        assertEquals(before, describe(club));
+        assertEquals(0, batter.getMatchesPlayed());
+        assertEquals(0, club.getMatchCount());
+        assertEquals(before, reopen());
+
+        // The reopened club has no history, so redo by hand and check the journal once more
+        Match again = club.scheduleMatch("Rivals", LocalDate.of(2024, 5, 4), "Home Ground");
+        Player batterAgain = club.getPlayerById(0);
+        club.recordMatchPerformance(again, batterAgain, 40, 0);
+        club.recordMatchPerformance(again, club.getPlayerById(1), 5, 3);
+        club.recordMatchPerformance(again, batterAgain, 55, 1);
+        club.recordTrainingSession(batterAgain, 10 * DAY, 90, 60, 30);
+        club.recordTrainingSession(batterAgain, 11 * DAY, 60, 0, 60);
+        assertEquals(after, describe(club));
+        assertEquals(after, reopen());
+    }
+
+    @Test
+    void undoThenRedoSurvivesReopen() throws IOException {
+        Match match = history.scheduleMatch("Rivals", null, null);
+        history.recordMatchPerformance(match, batter, 12, 0);
+        history.recordMatchPerformance(match, batter, 30, 2);
+        history.recordTrainingSession(bowler, 3 * DAY, 45, 0, 45);
+        String after = describe(club);
+        for (int i = 0; i < 4; i++) {
+            history.undo();
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(history.redo());
+        }
+        assertFalse(history.canRedo());
+        assertEquals(after, describe(club));
+        assertEquals(after, reopen());
+        store.writeSnapshot();
+        assertEquals(after, reopen());
+    }
+
+    // A delivery feed or import can add a row after the one being undone
+    @Test
+    void undoRemovesARowThatIsNoLongerTheNewest() throws IOException {
+        Match match = history.scheduleMatch("Rivals", null, null);
+        history.recordMatchPerformance(match, batter, 40, 0);
+        club.addMatchFigures(match, new int[] {bowler.getId()}, new int[] {7}, new int[] {2}, 1);
+
+        assertTrue(history.undo());
+        assertEquals(1, match.getPerformanceCount());
+        assertEquals(-1, match.findRow(batter.getId()));
+        assertEquals(0, match.findRow(bowler.getId()));
+        assertEquals(7, match.getTotalRuns());
+        assertEquals(7, club.calculateRunsAgainstOpponent("Rivals"));
+        assertEquals(0, batter.getMatchesPlayed());
+        assertEquals(0, batter.getRunsScored());
+        assertEquals(1, bowler.getMatchesPlayed());
+
+        String after = describe(club);
+        assertEquals(after, reopen());
+    }
+
+    @Test
+    void undoOfFiguresChangedSinceFailsWithoutChangingAnything() throws IOException {
+        Match match = history.scheduleMatch("Rivals", null, null);
+        history.recordMatchPerformance(match, batter, 40, 0);
+        club.addMatchFigures(match, new int[] {batter.getId()}, new int[] {6}, new int[] {0}, 1);
+        String before = describe(club);
+
+        assertThrows(IllegalStateException.class, history::undo);
+        assertEquals(before, describe(club));
+        assertTrue(history.canUndo());
+        assertEquals(before, reopen());
+    }
+
+    @Test
+    void matchWithPerformancesCannotBeUnscheduled() {
+        history.scheduleMatch("Rivals", null, null);
+        club.addMatchFigures(club.getMatch(0), new int[] {bowler.getId()}, new int[] {7}, new int[] {2}, 1);
+        assertThrows(IllegalStateException.class, history::undo);
+        assertEquals(1, club.getMatchCount());
+    }
+
+    // A name too long for a journal record is refused before the club or the history changes
+    @Test
+    void unsavableNamesChangeNothing() throws IOException {
+        String before = describe(club);
+        String lastChange = history.getUndoDescription();
+        String longName = "x".repeat(1 << 16);
+        assertThrows(IllegalArgumentException.class, () -> history.addPlayer(new Player(longName, 20, "Batsman")));
+        assertThrows(IllegalArgumentException.class, () -> history.addCoach(new Coach(longName, 50, 20)));
+        assertThrows(IllegalArgumentException.class, () -> history.scheduleMatch("Rivals", null, longName));
+        assertEquals(before, describe(club));
+        assertEquals(0, club.getMatchCount());
+        assertEquals(lastChange, history.getUndoDescription());
+        assertEquals(before, reopen());
+    }
+
+    // Closes the store and loads the club again, returning what was loaded
+    private String reopen() throws IOException {
+        store.close();
+        store = new ClubStore(data);
+        club = store.load("Test");
+        return describe(club);
+    }
+
+    // Everything the store saves, in a form that can be compared
+    private static String describe(Club club) {
+        StringBuilder out = new StringBuilder();
+        out.append("coach ").append(club.getCoach()).append('\n');
+        for (int id = 0; id < club.getRegisteredPlayerCount(); id++) {
+            Player player = club.getPlayerById(id);
+            TrainingLog log = player.getTrainingLog();
+            out.append("player ").append(id).append(' ').append(player.getName()).append(' ')
+                    .append(club.isInSquad(player)).append(' ').append(player.getMatchesPlayed()).append(' ')
+                    .append(player.getRunsScored()).append(' ').append(player.getWicketsTaken()).append(' ')
+                    .append(player.getTrainingSessions());
+            long[] times = log.getTimes();
+            for (int i = 0; i < times.length; i++) {
+                out.append(' ').append(times[i]).append('/').append(log.getMinutes(i)).append('/')
+                        .append(log.getBattingMinutes(i)).append('/').append(log.getBowlingMinutes(i));
+            }
+            out.append('\n');
+        }
+        for (Player player : club.getPlayers()) {
+            out.append("squad ").append(player.getId()).append('\n');
+        }
+        for (Match match : club.getMatches()) {
+            out.append(match).append('\n');
+            for (int row = 0; row < match.getPerformanceCount(); row++) {
+                out.append("  ").append(match.getPlayerId(row)).append(' ').append(match.getRuns(row)).append(' ')
+                        .append(match.getWickets(row)).append('\n');
+            }
+            OpponentStats stats = club.getOpponentStats(match.getOpponent());
+            out.append("  vs ").append(stats.getMatchesPlayed()).append(' ').append(stats.getRuns()).append(' ')
+                    .append(stats.getWickets()).append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ClubServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ClubServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void servesTheSquadAndAnswers404ForUnknownPaths() throws Exception {
+        Club club = new Club("Test", null);
+        club.addPlayer(new Player("Batter", 21, "Batsman"));
+        start(club);
+        HttpResponse<String> squad = get("/squad");
+        assertEquals(200, squad.statusCode());
+        assertTrue(squad.body().contains("\"Batter\""), squad.body());
+        assertEquals(404, get("/players/abc").statusCode());
+        assertEquals(404, get("/matches/7").statusCode());
+    }
+
+    // Contexts match by prefix; only the paths the server documents are answered
+    @Test
+    void pathsBeyondARouteAnswer404() throws Exception {
+        Club club = new Club("Test", null);
+        club.addPlayer(new Player("Batter", 21, "Batsman"));
+        club.scheduleMatch("Rivals");
+        start(club);
+        assertEquals(200, get("/coach").statusCode());
+        assertEquals(200, get("/players/0").statusCode());
+        assertEquals(200, get("/matches").statusCode());
+        assertEquals(200, get("/matches/0").statusCode());
+        assertEquals(200, get("/opponents/Rivals").statusCode());
+        for (String path : new String[] {"/squadXYZ", "/squad/anything", "/coach/", "/coachX", "/matchesXYZ",
+                "/matches/0/extra", "/players/0/extra", "/players/", "/opponents/"}) {
+            assertEquals(404, get(path).statusCode(), path);
+        }
+    }
+
+    // Any other failure in a route still gets a response instead of a dropped connection
+    @Test
+    void failingRouteAnswers500() throws Exception {
+        start(new Club("Test", null) {
+            @Override
+            public List<Player> getPlayers() {
+                throw new IllegalStateException("broken");
+            }
+        });
+        HttpResponse<String> response = get("/squad");
+        assertEquals(500, response.statusCode());
+        assertTrue(response.body().contains("error"), response.body());
+        assertEquals(200, get("/coach").statusCode());
+    }
+
+    private void start(Club club) throws IOException {
+        server = new ClubServer(club, 0);
+        server.start();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,209 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClubTransferTest {
+    private static final int PLAYERS = 100;
+    // More rows for one match than fit in a single journal record
+    private static final int ROWS = ClubStore.FIGURES_PER_RECORD * 2 + 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvImportOfOneLargeMatchSurvivesReopen() throws IOException {
+        Path csv = Files.createDirectories(dir.resolve("csv"));
+        writeCsv(csv);
+        File data = dir.resolve("data").toFile();
+        try (ClubStore store = new ClubStore(data)) {
+            Club club = store.load("Test");
+            int[] clubIds = ClubTransfer.importPlayersCsv(club, csv.resolve(ClubTransfer.PLAYERS_FILE));
+            assertEquals(ROWS, ClubTransfer.importPerformancesCsv(club,
+                    csv.resolve(ClubTransfer.PERFORMANCES_FILE), clubIds));
+            assertLargeMatch(club);
+        }
+        try (ClubStore store = new ClubStore(data)) {
+            assertLargeMatch(store.load("Test"));
+        }
+    }
+
+    @Test
+    void binaryImportOfOneLargeMatchSurvivesReopen() throws IOException {
+        Path csv = Files.createDirectories(dir.resolve("csv"));
+        writeCsv(csv);
+        Club source = new Club("Source", null);
+        ClubTransfer.importPerformancesCsv(source, csv.resolve(ClubTransfer.PERFORMANCES_FILE),
+                ClubTransfer.importPlayersCsv(source, csv.resolve(ClubTransfer.PLAYERS_FILE)));
+        Path bin = dir.resolve(ClubTransfer.BINARY_FILE);
+        ClubTransfer.exportBinary(source, bin);
+
+        File data = dir.resolve("data").toFile();
+        try (ClubStore store = new ClubStore(data)) {
+            Club club = store.load("Test");
+            ClubTransfer.importBinary(club, bin);
+            assertLargeMatch(club);
+        }
+        try (ClubStore store = new ClubStore(data)) {
+            assertLargeMatch(store.load("Test"));
+        }
+    }
+
+    @Test
+    void unknownPlayerIdChangesNothing() throws IOException {
+        File data = dir.resolve("data").toFile();
+        try (ClubStore store = new ClubStore(data)) {
+            Club club = store.load("Test");
+            club.addPlayer(new Player("Batter", 20, "Batsman"));
+            Match match = club.scheduleMatch("Rivals");
+            assertThrows(IllegalArgumentException.class,
+                    () -> club.addMatchFigures(match, new int[] {0, 7}, new int[] {10, 10}, new int[] {0, 0}, 2));
+            assertEquals(0, match.getPerformanceCount());
+            assertEquals(0, club.getPlayerById(0).getRunsScored());
+        }
+        try (ClubStore store = new ClubStore(data)) {
+            assertEquals(0, store.load("Test").getMatch(0).getPerformanceCount());
+        }
+    }
+
+    @Test
+    void csvRoundTripKeepsFixtureDetails() throws IOException {
+        Club source = fixtureClub();
+        Path csv = Files.createDirectories(dir.resolve("csv"));
+        ClubTransfer.exportPlayersCsv(source, csv.resolve(ClubTransfer.PLAYERS_FILE));
+        assertEquals(4, ClubTransfer.exportMatchesCsv(source, csv.resolve(ClubTransfer.MATCHES_FILE)));
+        ClubTransfer.exportPerformancesCsv(source, csv.resolve(ClubTransfer.PERFORMANCES_FILE));
+
+        Club target = new Club("Target", null);
+        int[] clubIds = ClubTransfer.importPlayersCsv(target, csv.resolve(ClubTransfer.PLAYERS_FILE));
+        Map<Integer, Match> matches = ClubTransfer.importMatchesCsv(target, csv.resolve(ClubTransfer.MATCHES_FILE));
+        ClubTransfer.importPerformancesCsv(target, csv.resolve(ClubTransfer.PERFORMANCES_FILE), clubIds, matches);
+        assertEquals(describeMatches(source), describeMatches(target));
+        assertEquals(source.getNextMatch(LocalDate.of(2024, 6, 1)).toString(),
+                target.getNextMatch(LocalDate.of(2024, 6, 1)).toString());
+    }
+
+    @Test
+    void binaryRoundTripKeepsFixtureDetails() throws IOException {
+        Club source = fixtureClub();
+        Path bin = dir.resolve(ClubTransfer.BINARY_FILE);
+        ClubTransfer.exportBinary(source, bin);
+        Club target = new Club("Target", null);
+        ClubTransfer.importBinary(target, bin);
+        assertEquals(describeMatches(source), describeMatches(target));
+    }
+
+    // Exports written before matches had dates still import, as undated matches
+    @Test
+    void versionOneBinaryStillImports() throws IOException {
+        Path bin = dir.resolve(ClubTransfer.BINARY_FILE);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(bin))) {
+            out.writeInt(0x434C4258);
+            out.writeByte(1); // version
+            out.writeByte(1); // players
+            writeString(out, "Batter");
+            out.writeByte(30);
+            writeString(out, "Batsman");
+            out.writeBoolean(true);
+            out.writeByte(1); // opponents
+            writeString(out, "Rivals");
+            out.writeByte(1); // matches
+            out.writeByte(0); // opponent
+            out.writeByte(1); // performances
+            out.writeByte(0); // player
+            out.writeByte(42 << 1); // runs, zig-zag encoded
+            out.writeByte(3 << 1); // wickets
+        }
+        Club club = new Club("Target", null);
+        ClubTransfer.importBinary(club, bin);
+        Match match = club.getMatch(0);
+        assertEquals("Rivals", match.getOpponent());
+        assertNull(match.getDate());
+        assertEquals(MatchStatus.SCHEDULED, match.getStatus());
+        assertEquals(42, match.getTotalRuns());
+        assertEquals(3, club.getPlayerById(0).getWicketsTaken());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(bytes.length);
+        out.write(bytes);
+    }
+
+    // Dated and undated matches, with and without venues and performances
+    private static Club fixtureClub() {
+        Club club = new Club("Source", null);
+        Player batter = new Player("Batter", 22, "Batsman");
+        Player bowler = new Player("Bowler", 27, "Bowler");
+        club.addPlayer(batter);
+        club.addPlayer(bowler);
+        Match played = club.scheduleMatch("Rivals", LocalDate.of(2024, 5, 4), "Park Road, North End");
+        club.recordMatchPerformance(played, batter, 64, 0);
+        club.recordMatchPerformance(played, bowler, 3, 4);
+        club.setMatchStatus(played, MatchStatus.PLAYED);
+        club.scheduleMatch("Friendly XI");
+        Match cancelled = club.scheduleMatch("Rivals", LocalDate.of(2024, 6, 1), null);
+        club.setMatchStatus(cancelled, MatchStatus.CANCELLED);
+        club.scheduleMatch("Visitors", LocalDate.of(2024, 7, 20), "Home \"Oval\"");
+        return club;
+    }
+
+    private static List<String> describeMatches(Club club) {
+        List<String> matches = new ArrayList<>();
+        for (Match match : club.getMatches()) {
+            StringBuilder line = new StringBuilder(match.toString());
+            for (int row = 0; row < match.getPerformanceCount(); row++) {
+                line.append(' ').append(match.getPlayerName(row)).append('=').append(match.getRuns(row)).append('/')
+                        .append(match.getWickets(row));
+            }
+            matches.add(line.toString());
+        }
+        return matches;
+    }
+
+    // Each row is worth one run to player row % PLAYERS, and every tenth row one wicket too
+    private static void writeCsv(Path directory) throws IOException {
+        StringBuilder players = new StringBuilder("id,name,age,role,in_squad\n");
+        for (int id = 0; id < PLAYERS; id++) {
+            players.append(id).append(",Player ").append(id).append(",25,Allrounder,1\n");
+        }
+        Files.writeString(directory.resolve(ClubTransfer.PLAYERS_FILE), players, StandardCharsets.UTF_8);
+        StringBuilder performances = new StringBuilder("match,opponent,player_id,runs,wickets\n");
+        for (int row = 0; row < ROWS; row++) {
+            performances.append("0,Rivals,").append(row % PLAYERS).append(",1,").append(row % 10 == 0 ? 1 : 0)
+                    .append('\n');
+        }
+        Files.writeString(directory.resolve(ClubTransfer.PERFORMANCES_FILE), performances, StandardCharsets.UTF_8);
+    }
+
+    private static void assertLargeMatch(Club club) {
+        assertEquals(PLAYERS, club.getPlayerCount());
+        assertEquals(1, club.getMatchCount());
+        Match match = club.getMatch(0);
+        assertEquals(PLAYERS, match.getPerformanceCount());
+        assertEquals(ROWS, match.getTotalRuns());
+        assertEquals((ROWS + 9) / 10, match.getTotalWickets());
+        assertEquals(ROWS, club.calculateRunsAgainstOpponent("Rivals"));
+        long runs = 0;
+        for (Player player : club.getPlayers()) {
+            assertEquals(1, player.getMatchesPlayed());
+            runs += player.getRunsScored();
+        }
+        assertEquals(ROWS, runs);
+    }
+}
@@ -0,0 +1,61 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class DeliveryFeedTest {
+    @Test
+    void unknownPlayerIsRejectedByPublish() {
+        Club club = new Club("Test", null);
+        addPlayers(club);
+        Match match = club.scheduleMatch("Rivals");
+        try (DeliveryFeed feed = new DeliveryFeed(club, match, 8)) {
+            feed.start();
+            feed.publish(0, 1, 0, 1, 4, 0, ExtraType.NONE, WicketType.NONE);
+            assertThrows(IllegalArgumentException.class,
+                    () -> feed.publish(0, 2, 0, 7, 1, 0, ExtraType.NONE, WicketType.BOWLED));
+            feed.publish(0, 2, 0, 1, 1, 0, ExtraType.NONE, WicketType.NONE);
+            feed.close();
+            assertEquals(5, feed.getScorecard().getTotal());
+            assertEquals(5, club.getPlayerById(0).getRunsScored());
+            assertEquals(0, club.getPlayerById(1).getWicketsTaken());
+        }
+    }
+
+    // A failing consumer stops the feed; the scorer gets the failure instead of waiting on a
+    // full ring, and the scorecard never shows figures the club did not take
+    @Test
+    void consumerFailureReachesPublishAndClose() {
+        Club club = new Club("Test", null) {
+            @Override
+            public void addMatchFigures(Match match, int[] playerIds, int[] runs, int[] wickets, int count) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        };
+        addPlayers(club);
+        Match match = club.scheduleMatch("Rivals");
+        DeliveryFeed feed = new DeliveryFeed(club, match, 8);
+        feed.start();
+        IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IllegalStateException.class, () -> {
+                    for (int ball = 0; ball < 1_000; ball++) {
+                        feed.publish(ball / 6, ball % 6 + 1, 0, 1, 1, 0, ExtraType.NONE, WicketType.NONE);
+                    }
+                }));
+        assertEquals(UncheckedIOException.class, failure.getCause().getClass());
+        assertThrows(IllegalStateException.class, feed::close);
+        assertEquals(0, feed.getScorecard().getTotal());
+    }
+
+    private static void addPlayers(Club club) {
+        club.addPlayer(new Player("Batter", 22, "Batsman"));
+        club.addPlayer(new Player("Bowler", 27, "Bowler"));
+    }
+}
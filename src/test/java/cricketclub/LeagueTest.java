@@ -0,0 +1,137 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LeagueTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void fixturesSurviveReopenWithADifferentShardCount() throws IOException {
+        File directory = dir.toFile();
+        List<String> before = new ArrayList<>();
+        try (League league = League.open(directory, 4)) {
+            for (int i = 0; i < 6; i++) {
+                Club club = league.addClub("Club " + i);
+                club.addPlayer(new Player("Player " + i, 20 + i, "Batsman"));
+            }
+            for (int i = 0; i < 6; i++) {
+                Fixture fixture = league.scheduleFixture("Club " + i, "Club " + (i + 1) % 6);
+                fixture.recordPerformance(league.getClub("Club " + i).getPlayerById(0), 10 * i, 1);
+                fixture.recordPerformance(league.getClub("Club " + (i + 1) % 6).getPlayerById(0), 5, 0);
+            }
+            for (Fixture fixture : league.getFixtures()) {
+                before.add(fixture.toString());
+            }
+        }
+        try (League league = League.open(directory, 3)) {
+            assertEquals(6, league.getClubCount());
+            List<Fixture> fixtures = league.getFixtures();
+            List<String> after = new ArrayList<>();
+            for (Fixture fixture : fixtures) {
+                after.add(fixture.toString());
+                assertSame(fixture.getHomeMatch(), fixture.getHome().getMatch(fixture.getHomeMatch().getIndex()));
+                assertEquals(fixture.getAway().getName(), fixture.getHomeMatch().getOpponent());
+                assertEquals(fixture.getHome().getName(), fixture.getAwayMatch().getOpponent());
+            }
+            assertEquals(before, after);
+
+            // Fixtures scheduled after reopening are saved as well
+            league.scheduleFixture("Club 0", "Club 3");
+        }
+        try (League league = League.open(directory, 4)) {
+            assertEquals(7, league.getFixtures().size());
+            assertEquals("Club 3", league.getFixtures().get(6).getAway().getName());
+        }
+    }
+
+    // Crashes after a fixture was saved but before one or both clubs saved their side of it
+    @Test
+    void fixturesCutShortByACrashAreFinishedOnReopen() throws IOException {
+        File directory = dir.toFile();
+        try (League league = League.open(directory, 2)) {
+            league.addClub("Home");
+            league.addClub("Away");
+            league.addClub("Visitors");
+            league.scheduleFixture("Home", "Away");
+            league.getClub("Home").scheduleMatch("Away");
+        }
+        appendFixture(directory, "Home", "Away", 1, 1);
+        appendFixture(directory, "Visitors", "Home", 0, 2);
+
+        for (int reopen = 0; reopen < 2; reopen++) {
+            try (League league = League.open(directory, 2)) {
+                List<Fixture> fixtures = league.getFixtures();
+                assertEquals(3, fixtures.size());
+                Club home = league.getClub("Home");
+                assertEquals(3, home.getMatchCount());
+                assertEquals(2, league.getClub("Away").getMatchCount());
+                assertEquals(1, league.getClub("Visitors").getMatchCount());
+                assertSame(home.getMatch(1), fixtures.get(1).getHomeMatch());
+                assertEquals("Home", fixtures.get(1).getAwayMatch().getOpponent());
+                assertSame(home.getMatch(2), fixtures.get(2).getAwayMatch());
+                assertEquals("Visitors", home.getMatch(2).getOpponent());
+            }
+        }
+    }
+
+    // The record League.scheduleFixture saves before either club schedules its match
+    private static void appendFixture(File directory, String home, String away, int homeIndex, int awayIndex)
+            throws IOException {
+        byte[] homeName = home.getBytes(StandardCharsets.UTF_8);
+        byte[] awayName = away.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(16 + homeName.length + awayName.length);
+        record.putInt(homeName.length).put(homeName).putInt(awayName.length).put(awayName);
+        record.putInt(homeIndex).putInt(awayIndex);
+        try (ClubJournal journal = new ClubJournal(new File(directory, "fixtures.journal"))) {
+            journal.append((byte) 1, record.flip());
+        }
+    }
+
+    @Test
+    void topRunScorersMatchesAFullSort() {
+        SplittableRandom random = new SplittableRandom(7);
+        League league = new League(8);
+        List<Player> everyone = new ArrayList<>();
+        for (int c = 0; c < 50; c++) {
+            Club club = league.addClub("Club " + c);
+            Match match = club.scheduleMatch("Friendly");
+            for (int p = 0; p < 20; p++) {
+                Player player = new Player("Player " + c + "-" + p, 25, "Batsman");
+                club.addPlayer(player);
+                club.recordMatchPerformance(match, player, random.nextInt(1_000_000), random.nextInt(10));
+                everyone.add(player);
+            }
+        }
+        everyone.sort(Comparator.comparingInt(Player::getRunsScored).reversed());
+        List<LeaguePlayer> top = league.topRunScorers(10);
+        assertEquals(10, top.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(everyone.get(i).getRunsScored(), top.get(i).getPlayer().getRunsScored());
+        }
+    }
+
+    @Test
+    void clubCannotPlayItself() {
+        League league = new League(2);
+        league.addClub("Home");
+        assertThrows(IllegalArgumentException.class, () -> league.scheduleFixture("Home", "Home"));
+        assertThrows(IllegalArgumentException.class, () -> league.scheduleFixture("Home", "Nobody"));
+        assertThrows(IllegalArgumentException.class, () -> league.addClub("Home"));
+    }
+}
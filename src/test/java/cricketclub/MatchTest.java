@@ -0,0 +1,64 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class MatchTest {
+    @Test
+    void cachedMapsFollowEveryChange() {
+        Match match = new Club("Test", null).scheduleMatch("Rivals");
+        Player player = new Player("Batter", 20, "Batsman");
+        match.addPlayerPerformance(player, 10, 1);
+        assertEquals(10, match.getPlayerRunsMap().get("Batter"));
+        match.addPlayerPerformance(player, 25, 2);
+        assertEquals(25, match.getPlayerRunsMap().get("Batter"));
+        assertEquals(2, match.getPlayerWicketsMap().get("Batter"));
+    }
+
+    // Recording a player again replaces their figures rather than adding a second appearance
+    @Test
+    void recordingAgainChangesTotalsByTheDifference() {
+        Match match = new Club("Test", null).scheduleMatch("Rivals");
+        Player player = new Player("Batter", 20, "Batsman");
+        match.addPlayerPerformance(player, 10, 1);
+        match.addPlayerPerformance(player, 25, 2);
+        assertEquals(1, player.getMatchesPlayed());
+        assertEquals(25, player.getRunsScored());
+        assertEquals(2, player.getWicketsTaken());
+
+        match.revertPerformance(player, 25, 2, 10, 1, true);
+        assertEquals(1, player.getMatchesPlayed());
+        assertEquals(10, player.getRunsScored());
+        assertEquals(1, player.getWicketsTaken());
+        match.revertPerformance(player, 10, 1, 0, 0, false);
+        assertEquals(0, player.getMatchesPlayed());
+        assertEquals(0, player.getRunsScored());
+    }
+
+    // A reader racing the scorer must never put back a map from before the latest change
+    @Test
+    void cachedMapsAreNotStaleAfterConcurrentChanges() throws InterruptedException {
+        Match match = new Club("Test", null).scheduleMatch("Rivals");
+        Player player = new Player("Batter", 20, "Batsman");
+        match.addPlayerPerformance(player, 0, 0);
+        AtomicBoolean scoring = new AtomicBoolean(true);
+        Thread reader = new Thread(() -> {
+            while (scoring.get()) {
+                match.getPlayerRunsMap();
+            }
+        });
+        reader.start();
+        try {
+            for (int runs = 1; runs <= 200_000; runs++) {
+                match.restorePerformance(player.getId(), runs, 0);
+                assertEquals(runs, match.getPlayerRunsMap().get("Batter"));
+            }
+        } finally {
+            scoring.set(false);
+            reader.join();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class PerformanceTableTest {
+    // Random adds and removals against a list kept in row order
+    @Test
+    void removeRowKeepsOrderAndIndex() {
+        SplittableRandom random = new SplittableRandom(42);
+        PerformanceTable table = new PerformanceTable();
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                int playerId = random.nextInt(500);
+                int row = table.rowFor(playerId);
+                if (!expected.contains(playerId)) {
+                    expected.add(playerId);
+                }
+                table.set(row, PerformanceTable.RUNS, playerId * 2);
+            } else {
+                int row = random.nextInt(expected.size());
+                table.removeRow(row);
+                expected.remove(row);
+            }
+            if (step % 97 == 0) {
+                check(table, expected);
+            }
+        }
+        check(table, expected);
+    }
+
+    // The model keeps showing what it copied when a performance is taken back afterwards
+    @Test
+    void tableModelIsASnapshot() {
+        Club club = new Club("Test", null);
+        Player batter = new Player("Batter", 20, "Batsman");
+        Player bowler = new Player("Bowler", 24, "Bowler");
+        club.addPlayer(batter);
+        club.addPlayer(bowler);
+        club.scheduleMatch("Friendly XI");
+        Match match = club.scheduleMatch("Rivals");
+        club.recordMatchPerformance(match, batter, 40, 0);
+        club.recordMatchPerformance(match, bowler, 3, 4);
+        PerformanceTableModel model = new PerformanceTableModel(club);
+
+        club.revertMatchPerformance(match, batter, 40, 0, 0, 0, false);
+        assertEquals(2, model.getRowCount());
+        assertEquals(2, model.getValueAt(0, 0));
+        assertEquals("Rivals", model.getValueAt(0, 1));
+        assertEquals("Batter", model.getValueAt(0, 2));
+        assertEquals(40, model.getValueAt(0, 3));
+        assertEquals("Bowler", model.getValueAt(1, 2));
+        assertEquals(4, model.getValueAt(1, 4));
+        assertEquals(1, new PerformanceTableModel(club).getRowCount());
+    }
+
+    private static void check(PerformanceTable table, List<Integer> expected) {
+        assertEquals(expected.size(), table.size());
+        for (int row = 0; row < expected.size(); row++) {
+            int playerId = expected.get(row);
+            assertEquals(playerId, table.getPlayerId(row));
+            assertEquals(row, table.rowOf(playerId));
+            assertEquals(playerId * 2, table.get(row, PerformanceTable.RUNS));
+        }
+        for (int playerId = 0; playerId < 500; playerId++) {
+            if (!expected.contains(playerId)) {
+                assertEquals(-1, table.rowOf(playerId));
+            }
+        }
+    }
+}
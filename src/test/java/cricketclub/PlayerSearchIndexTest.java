@@ -0,0 +1,59 @@
+package cricketclub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerSearchIndexTest {
+    private static final String[] SYLLABLES = {"ra", "vi", "sh", "an", "ku", "mar", "jo", "nes", "ta", "yl", "or",
+            "sm", "ith", "de", "va", "li", "er", "xo"};
+
+    // Many distinct names and numbers, with a third of the squad removed again
+    @Test
+    void searchMatchesAScanOfTheSquad() {
+        SplittableRandom random = new SplittableRandom(3);
+        Club club = new Club("Test", null);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int s = 1 + random.nextInt(4); s > 0; s--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.append(' ').append(random.nextInt(1_000_000));
+            Player player = new Player(name.toString(), 20, i % 2 == 0 ? "Batsman" : "Bowler");
+            club.addPlayer(player);
+            players.add(player);
+        }
+        for (int i = 0; i < players.size(); i += 3) {
+            club.removePlayer(players.get(i));
+        }
+        club.prepareSearch();
+
+        String[] queries = {"rav", "mar", "ith 1", "xo", "a", "nes", "4", "42", "bowler", "yl 9", "zzz"};
+        for (String query : queries) {
+            assertEquals(scan(club, query), club.searchPlayers(query, Integer.MAX_VALUE), query);
+        }
+    }
+
+    // The same rules as PlayerSearchIndex, applied to every squad player
+    private static List<Player> scan(Club club, String query) {
+        String q = query.toLowerCase(Locale.ROOT);
+        List<Player> result = new ArrayList<>();
+        for (Player player : club.getPlayers()) {
+            String text = (player.getName() + " " + player.getRole()).toLowerCase(Locale.ROOT);
+            boolean match = false;
+            for (int i = text.indexOf(q); i >= 0 && !match; i = text.indexOf(q, i + 1)) {
+                match = q.length() >= 3 || i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+            }
+            if (match) {
+                result.add(player);
+            }
+        }
+        return result;
+    }
+}